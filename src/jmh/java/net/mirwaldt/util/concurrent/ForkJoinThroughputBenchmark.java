@@ -0,0 +1,99 @@
+package net.mirwaldt.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+// compares the ForkJoin mode against a ThreadPoolExecutor with the same number of threads
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForkJoinThroughputBenchmark {
+    private static final int PARALLELISM = 4;
+    private static final int TASKS_PER_INVOCATION = 64;
+    private static final long CPU_TOKENS = 10_000L;
+    private static final long BLOCKING_IN_NANOS = 100_000L;
+
+    @Param({"threadPool", "forkJoin", "forkJoinAsync"})
+    public String pool;
+
+    @Param({"cpu", "blocking"})
+    public String workload;
+
+    private DynamicPoolSizeScheduledExecutor executor;
+    private Callable<Long> task;
+    private final ScheduledFuture<?>[] futures = new ScheduledFuture<?>[TASKS_PER_INVOCATION];
+
+    @Setup
+    public void setUp() {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        switch (pool) {
+            case "threadPool":
+                executor = new DynamicPoolSizeScheduledExecutor(scheduler, new ThreadPoolExecutor(
+                        PARALLELISM, PARALLELISM, 0, MILLISECONDS, new LinkedBlockingQueue<>()));
+                break;
+            case "forkJoin":
+                executor = new DynamicPoolSizeScheduledExecutor(scheduler, PARALLELISM, false);
+                break;
+            case "forkJoinAsync":
+                executor = new DynamicPoolSizeScheduledExecutor(scheduler, PARALLELISM, true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown pool " + pool + "!");
+        }
+        if ("cpu".equals(workload)) {
+            task = () -> {
+                Blackhole.consumeCPU(CPU_TOKENS);
+                return CPU_TOKENS;
+            };
+        } else {
+            // stands for blocking I/O and is wrapped the same way for both pools
+            task = DynamicPoolSizeScheduledExecutor.blocking(() -> {
+                LockSupport.parkNanos(BLOCKING_IN_NANOS);
+                return BLOCKING_IN_NANOS;
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS_PER_INVOCATION)
+    public void scheduleAndGet(Blackhole blackhole) throws InterruptedException, ExecutionException {
+        for (int i = 0; i < TASKS_PER_INVOCATION; i++) {
+            futures[i] = executor.schedule(task, 0, MILLISECONDS);
+        }
+        for (ScheduledFuture<?> future : futures) {
+            blackhole.consume(future.get());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package net.mirwaldt.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+// the latency of get() minus the delay is the cost of waking up the caller after the execution;
+// the delays lie below, around and above MAX_SPIN_DELAY_IN_NANOS of AbstractDynamicFuture
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaitStrategyLatencyBenchmark {
+    @Param({"PARK", "SPIN_YIELD_PARK"})
+    public WaitStrategy waitStrategy;
+
+    @Param({"0", "100", "500", "900", "2000"})
+    public long delayInMicros;
+
+    private DynamicPoolSizeScheduledExecutor executor;
+    private final Callable<Boolean> task = () -> true;
+
+    @Setup
+    public void setUp() {
+        executor = new DynamicPoolSizeScheduledExecutor(
+                new ScheduledThreadPoolExecutor(1), Executors.newSingleThreadExecutor());
+        executor.setWaitStrategy(waitStrategy);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, SECONDS);
+    }
+
+    @Benchmark
+    public Boolean scheduleAndGet() throws InterruptedException, ExecutionException {
+        return executor.schedule(task, delayInMicros, MICROSECONDS).get();
+    }
+}
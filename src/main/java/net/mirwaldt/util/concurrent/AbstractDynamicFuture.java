@@ -1,43 +1,108 @@
 package net.mirwaldt.util.concurrent;
 
 import java.util.concurrent.*;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
-abstract class AbstractDynamicFuture<T> implements ScheduledFuture<T> {
-    protected final ExecutorService executorService;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
-    protected final CountDownLatch scheduledFutureLatch = new CountDownLatch(1);
-    protected final CountDownLatch futureLatch = new CountDownLatch(1);
+// The monitor of a future guards its state and is notified whenever its state changes
+// so that no latches or locks need to be allocated for each of very many pending timers.
+abstract class AbstractDynamicFuture<T> implements RunnableScheduledFuture<T> {
+    // see WaitStrategyLatencyBenchmark: beyond 1 ms the wake-up latency of parking is small compared to the delay
+    static final long MAX_SPIN_DELAY_IN_NANOS = 1_000_000L;
+    // covers the default timer slack of 50 us by which Linux delays the wake-up of the timer thread
+    static final long SPIN_AFTER_DELAY_IN_NANOS = 50_000L;
+    // covers the tail of the time from the firing of the timer until the result is set
+    static final long YIELD_IN_NANOS = 200_000L;
+    // spinning on a single processor only delays the threads which fire and execute the task
+    static final boolean MULTIPROCESSOR = 1 < Runtime.getRuntime().availableProcessors();
 
-    protected final ReentrantLock reentrantLock = new ReentrantLock();
+    // the states of a timer in the slot table of a PrimitiveTimerScheduledExecutor
+    private static final byte TIMER_PENDING = 0;
+    private static final byte TIMER_FIRED = 1;
+    private static final byte TIMER_CANCELLED = 2;
 
-    // guarded by reentrantLock
-    protected ScheduledFuture<?> scheduledFuture;
-    // guarded by reentrantLock
-    protected Future<?> future;
+    protected final Dispatcher dispatcher;
+    protected final String tenant;
+    // positive for a fixed rate, negative for a fixed delay and zero for a one-shot task
+    protected final long period;
 
-    protected AbstractDynamicFuture(ExecutorService executorService) {
-        this.executorService = executorService;
+    // written while holding the monitor, replaced after each execution of a task with a fixed delay,
+    // stays null if the timer is a slot of a PrimitiveTimerScheduledExecutor
+    protected volatile ScheduledFuture<?> scheduledFuture;
+    // written while holding the monitor
+    protected volatile Future<?> future;
+    // written while holding the monitor, null if the dispatch has never been delayed by a rate limit
+    protected volatile ScheduledFuture<?> throttledFuture;
+    // written before terminated is set, null if the periodic task has been cancelled
+    private volatile Throwable periodicFailure;
+    // guarded by the lock of the PrimitiveTimerScheduledExecutor, -1 if the timer has no slot
+    int timerSlot = -1;
+    // written while holding the monitor, only used by a slot of a PrimitiveTimerScheduledExecutor
+    private volatile byte timerState = TIMER_PENDING;
+    // written while holding the monitor, set when a periodic task is cancelled or one of its executions fails
+    private volatile boolean terminated;
+    // guarded by the monitor, true if a timer of a fixed rate has fired while the previous execution was pending
+    private boolean missedPeriod;
+    // guarded by the pendingLock of the Dispatcher, links the futures whose timers are pending
+    AbstractDynamicFuture<?> previousPendingFuture;
+    AbstractDynamicFuture<?> nextPendingFuture;
+
+    protected AbstractDynamicFuture(Dispatcher dispatcher, String tenant, long period) {
+        this.dispatcher = dispatcher;
+        this.tenant = tenant;
+        this.period = period;
+    }
+
+    protected abstract Callable<T> newCallable();
+
+    abstract Runnable getTask();
+
+    String getTenant() {
+        return tenant;
+    }
+
+    @Override
+    public boolean isPeriodic() {
+        return period != 0;
+    }
+
+    boolean isTerminated() {
+        return terminated;
     }
 
     @Override
     public long getDelay(TimeUnit unit) {
-        return scheduledFuture.getDelay(unit);
+        final ScheduledFuture<?> currentThrottledFuture = throttledFuture;
+        if (!isPeriodic() && currentThrottledFuture != null && !isDispatched()) {
+            return currentThrottledFuture.getDelay(unit);
+        }
+        waitForScheduledFuture();
+        return getTimerDelay(unit);
     }
 
     @Override
     public int compareTo(Delayed o) {
-        return scheduledFuture.compareTo(o);
+        if (o == this) {
+            return 0;
+        }
+        return Long.compare(getDelay(NANOSECONDS), o.getDelay(NANOSECONDS));
     }
 
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
         waitForScheduledFuture();
         return runLockedWithResult(() -> {
-            if (future == null) {
-                return scheduledFuture.cancel(mayInterruptIfRunning);
+            if (isPeriodic()) {
+                return terminatePeriodic(null, mayInterruptIfRunning);
+            } else if (future == null) {
+                dispatcher.unregister(this);
+                final boolean cancelled = cancelTimer(mayInterruptIfRunning);
+                return cancelThrottledFuture(mayInterruptIfRunning) || cancelled;
             } else {
-                scheduledFuture.cancel(mayInterruptIfRunning);
+                cancelTimer(mayInterruptIfRunning);
                 return future.cancel(mayInterruptIfRunning);
             }
         });
@@ -45,33 +110,62 @@ abstract class AbstractDynamicFuture<T> implements ScheduledFuture<T> {
 
     @Override
     public boolean isCancelled() {
+        if (isPeriodic()) {
+            return terminated && periodicFailure == null;
+        }
         waitForScheduledFuture();
         return runLockedWithResult(() -> {
             if (future == null) {
-                return scheduledFuture.isCancelled();
+                return isTimerCancelled() || (throttledFuture != null && throttledFuture.isCancelled());
             } else {
-                return scheduledFuture.isCancelled() && future.isCancelled();
+                return isTimerCancelled() && future.isCancelled();
             }
         });
     }
 
     @Override
     public boolean isDone() {
+        if (isPeriodic()) {
+            return terminated;
+        }
         waitForScheduledFuture();
         return runLockedWithResult(() -> {
             if (future == null) {
-                return scheduledFuture.isDone();
+                return isTimerDone() && (throttledFuture == null || throttledFuture.isDone());
             } else {
-                return scheduledFuture.isDone() && future.isDone();
+                return isTimerDone() && future.isDone();
             }
         });
     }
 
     @Override
     public T get() throws InterruptedException, ExecutionException {
-        scheduledFutureLatch.await();
-        scheduledFuture.get();
-        futureLatch.await();
+        if (isPeriodic()) {
+            awaitLocked(this::isTerminated, Long.MAX_VALUE);
+            return reportPeriodicTermination();
+        }
+        awaitLocked(this::hasTimer, Long.MAX_VALUE);
+        spinAndYield(Long.MAX_VALUE);
+        try {
+            awaitTimer(Long.MAX_VALUE);
+        } catch (CancellationException e) {
+            if (!isDispatched()) {
+                throw e;
+            }
+        }
+        ScheduledFuture<?> previousThrottledFuture = null;
+        ScheduledFuture<?> currentThrottledFuture;
+        while (!isDispatched() && (currentThrottledFuture = throttledFuture) != previousThrottledFuture) {
+            try {
+                currentThrottledFuture.get();
+            } catch (CancellationException e) {
+                if (!isDispatched()) {
+                    throw e;
+                }
+            }
+            previousThrottledFuture = currentThrottledFuture;
+        }
+        awaitLocked(this::isDispatched, Long.MAX_VALUE);
         return (T) future.get();
     }
 
@@ -81,13 +175,42 @@ abstract class AbstractDynamicFuture<T> implements ScheduledFuture<T> {
         final TimeUnit selectedUnit = waitTimer.getSelectedUnit();
         long remainingTimeout = waitTimer.start();
 
-        if (!scheduledFutureLatch.await(remainingTimeout, selectedUnit)) {
+        if (isPeriodic()) {
+            if (!awaitLocked(this::isTerminated, selectedUnit.toNanos(remainingTimeout))) {
+                throw createTimeoutException(timeout, unit);
+            }
+            return reportPeriodicTermination();
+        }
+
+        if (!awaitLocked(this::hasTimer, selectedUnit.toNanos(remainingTimeout))) {
             throw createTimeoutException(timeout, unit);
         }
 
-        scheduledFuture.get(waitTimer.nextRemainingTimeout(), selectedUnit);
+        spinAndYield(selectedUnit.toNanos(waitTimer.nextRemainingTimeout()));
 
-        if (!futureLatch.await(waitTimer.nextRemainingTimeout(), selectedUnit)) {
+        try {
+            if (!awaitTimer(selectedUnit.toNanos(waitTimer.nextRemainingTimeout()))) {
+                throw createTimeoutException(timeout, unit);
+            }
+        } catch (CancellationException e) {
+            if (!isDispatched()) {
+                throw e;
+            }
+        }
+        ScheduledFuture<?> previousThrottledFuture = null;
+        ScheduledFuture<?> currentThrottledFuture;
+        while (!isDispatched() && (currentThrottledFuture = throttledFuture) != previousThrottledFuture) {
+            try {
+                currentThrottledFuture.get(waitTimer.nextRemainingTimeout(), selectedUnit);
+            } catch (CancellationException e) {
+                if (!isDispatched()) {
+                    throw e;
+                }
+            }
+            previousThrottledFuture = currentThrottledFuture;
+        }
+
+        if (!awaitLocked(this::isDispatched, selectedUnit.toNanos(waitTimer.nextRemainingTimeout()))) {
             throw createTimeoutException(timeout, unit);
         }
 
@@ -97,33 +220,336 @@ abstract class AbstractDynamicFuture<T> implements ScheduledFuture<T> {
     public void setScheduledFuture(ScheduledFuture<?> scheduledFuture) {
         runLockedWithoutResult(() -> {
             this.scheduledFuture = scheduledFuture;
-            scheduledFutureLatch.countDown();
+            notifyAll();
         });
     }
 
-    protected void runLockedWithoutResult(Runnable job) {
-        reentrantLock.lock();
+    // avoids the wake-up latency of parking for tasks which are due within MAX_SPIN_DELAY_IN_NANOS
+    private void spinAndYield(long maxWaitInNanos) {
+        if (dispatcher.getWaitStrategy() != WaitStrategy.SPIN_YIELD_PARK) {
+            return;
+        }
+        final long startTimeInNanos = System.nanoTime();
+        final long delayInNanos = max(0, getTimerDelay(NANOSECONDS));
+        if (MAX_SPIN_DELAY_IN_NANOS < delayInNanos) {
+            return;
+        }
+        final long spinTimeInNanos = min(maxWaitInNanos, delayInNanos + SPIN_AFTER_DELAY_IN_NANOS);
+        final long waitTimeInNanos = min(maxWaitInNanos, spinTimeInNanos + YIELD_IN_NANOS);
+        long elapsedTimeInNanos;
+        long spins = 0;
+        long yields = 0;
+        while (!isCompleted() && (elapsedTimeInNanos = System.nanoTime() - startTimeInNanos) < waitTimeInNanos) {
+            if (MULTIPROCESSOR && elapsedTimeInNanos < spinTimeInNanos) {
+                Thread.onSpinWait();
+                spins++;
+            } else {
+                Thread.yield();
+                yields++;
+            }
+        }
+        dispatcher.recordWaiting(spins, yields);
+    }
+
+    private boolean isCompleted() {
+        return isDispatched() ? future.isDone() : isTimerDone();
+    }
+
+    // returns false if the timer has neither fired nor been cancelled within the timeout
+    boolean awaitFired(long timeout, TimeUnit unit) throws InterruptedException {
+        final WaitTimer waitTimer = new WaitTimer(timeout, unit);
+        final TimeUnit selectedUnit = waitTimer.getSelectedUnit();
+        long remainingTimeout = waitTimer.start();
+
+        if (!awaitLocked(this::hasTimer, selectedUnit.toNanos(remainingTimeout))) {
+            return false;
+        }
         try {
+            if (!awaitTimer(selectedUnit.toNanos(waitTimer.nextRemainingTimeout()))) {
+                return false;
+            }
+            ScheduledFuture<?> previousThrottledFuture = null;
+            ScheduledFuture<?> currentThrottledFuture;
+            while (!isDispatched() && (currentThrottledFuture = throttledFuture) != previousThrottledFuture) {
+                currentThrottledFuture.get(waitTimer.nextRemainingTimeout(), selectedUnit);
+                previousThrottledFuture = currentThrottledFuture;
+            }
+        } catch (CancellationException | ExecutionException e) {
+            // the timer will not fire anymore
+        } catch (TimeoutException e) {
+            return false;
+        }
+        return true;
+    }
+
+    boolean cancelPending() {
+        waitForScheduledFuture();
+        return runLockedWithResult(() -> (future == null || isPeriodic()) && cancel(false));
+    }
+
+    // dispatches a one-shot task immediately even if its dispatch has been delayed by a rate limit
+    void dispatchNow() {
+        waitForScheduledFuture();
+        runLockedWithoutResult(() -> {
+            if (future == null && !isTimerDone()) {
+                dispatchLocked();
+                cancelTimer(false);
+            } else if (future == null && throttledFuture != null && !throttledFuture.isDone()) {
+                // the permit reserved for the throttled dispatch is used now
+                dispatchLocked();
+                throttledFuture.cancel(false);
+            }
+        });
+    }
+
+    // called by the scheduler when the timer fires
+    @Override
+    public void run() {
+        waitForScheduledFuture();
+        runLockedWithoutResult(() -> {
+            // the negative delay is how late the timer has fired
+            dispatcher.recordDispatchLag(-scheduledFuture.getDelay(NANOSECONDS));
+            fireLocked();
+        });
+    }
+
+    // called by a PrimitiveTimerScheduledExecutor which knows the deadline of the slot
+    void fire(long lagInNanos) {
+        dispatcher.recordDispatchLag(lagInNanos);
+        runLockedWithoutResult(this::fireLocked);
+    }
+
+    // guarded by the monitor
+    private void fireLocked() {
+        if (isPeriodic()) {
+            if (!terminated && !isTimerCancelled()) {
+                if (isPreviousExecutionPending()) {
+                    // like a ScheduledThreadPoolExecutor, a late execution is delayed instead of skipped
+                    missedPeriod = true;
+                } else {
+                    dispatchWithPermitLocked();
+                }
+            }
+        } else {
+            if (future == null && !isTimerCancelled()) {
+                dispatchWithPermitLocked();
+            }
+            if (scheduledFuture == null && timerState == TIMER_PENDING) {
+                timerState = TIMER_FIRED;
+                notifyAll();
+            }
+        }
+    }
+
+    // called by the DispatchedTask after an execution and before its result becomes visible
+    void executed(Throwable failure) {
+        if (!isPeriodic()) {
+            return;
+        }
+        runLockedWithoutResult(() -> {
+            if (failure != null) {
+                terminatePeriodic(failure, false);
+            } else if (!terminated) {
+                if (period < 0) {
+                    try {
+                        // the next delay starts when the previous execution has completed
+                        dispatcher.restartTimer(this, -period);
+                    } catch (RejectedExecutionException e) {
+                        // the scheduler has been shut down
+                        terminatePeriodic(null, false);
+                    }
+                } else if (missedPeriod) {
+                    missedPeriod = false;
+                    dispatchWithPermitLocked();
+                }
+            }
+        });
+    }
+
+    // guarded by the monitor
+    private void dispatchWithPermitLocked() {
+        final long throttleTimeInNanos = dispatcher.reservePermit(tenant);
+        if (0 < throttleTimeInNanos) {
+            try {
+                throttledFuture = dispatcher.retime(this::dispatchThrottled, throttleTimeInNanos);
+            } catch (RejectedExecutionException e) {
+                // the scheduler has been shut down and cannot delay the dispatch anymore
+                dispatchLocked();
+            }
+        } else {
+            dispatchLocked();
+        }
+    }
+
+    // guarded by the monitor
+    private boolean terminatePeriodic(Throwable failure, boolean mayInterruptIfRunning) {
+        if (terminated) {
+            return false;
+        }
+        periodicFailure = failure;
+        cancelTimer(mayInterruptIfRunning);
+        cancelThrottledFuture(mayInterruptIfRunning);
+        if (future != null && failure == null) {
+            future.cancel(mayInterruptIfRunning);
+        }
+        terminated = true;
+        notifyAll();
+        // after the termination so that a concurrent registration does not link a terminated future
+        dispatcher.unregister(this);
+        return true;
+    }
+
+    // guarded by the monitor
+    private boolean cancelThrottledFuture(boolean mayInterruptIfRunning) {
+        if (throttledFuture != null && throttledFuture.cancel(mayInterruptIfRunning)) {
+            // the permit reserved for the throttled dispatch has not been used
+            dispatcher.releasePermit(tenant);
+            return true;
+        }
+        return false;
+    }
+
+    private T reportPeriodicTermination() throws ExecutionException {
+        final Throwable failure = periodicFailure;
+        if (failure != null) {
+            throw new ExecutionException(failure);
+        }
+        throw new CancellationException();
+    }
+
+    // executions of a periodic task never overlap
+    private boolean isPreviousExecutionPending() {
+        return (future != null && !future.isDone()) || (throttledFuture != null && !throttledFuture.isDone());
+    }
+
+    // the permit has already been reserved before the dispatch was delayed
+    private void dispatchThrottled() {
+        runLockedWithoutResult(() -> {
+            if (!throttledFuture.isCancelled()) {
+                dispatchLocked();
+            }
+        });
+    }
+
+    // guarded by the monitor
+    private void dispatchLocked() {
+        final DispatchedTask<T> dispatchedTask = new DispatchedTask<>(this, newCallable());
+        try {
+            dispatcher.dispatch(dispatchedTask);
+        } catch (RejectedExecutionException e) {
+            if (isPeriodic()) {
+                terminatePeriodic(e, false);
+                return;
+            }
+            // get() reports the rejection because the scheduler does not report it anymore
+            dispatchedTask.reject(e);
+        }
+        future = dispatchedTask;
+        notifyAll();
+        if (!isPeriodic()) {
+            dispatcher.unregister(this);
+        }
+    }
+
+    boolean isDispatched() {
+        return future != null;
+    }
+
+    // the timer is either a ScheduledFuture or a slot of a PrimitiveTimerScheduledExecutor
+    private boolean hasTimer() {
+        return scheduledFuture != null || dispatcher.getPrimitiveTimers() != null;
+    }
+
+    private long getTimerDelay(TimeUnit unit) {
+        final ScheduledFuture<?> currentScheduledFuture = scheduledFuture;
+        if (currentScheduledFuture != null) {
+            return currentScheduledFuture.getDelay(unit);
+        }
+        return dispatcher.getPrimitiveTimers().getTimerDelay(this, unit);
+    }
+
+    // guarded by the monitor
+    private boolean cancelTimer(boolean mayInterruptIfRunning) {
+        if (scheduledFuture != null) {
+            return scheduledFuture.cancel(mayInterruptIfRunning);
+        }
+        if (timerState != TIMER_PENDING) {
+            return false;
+        }
+        timerState = TIMER_CANCELLED;
+        dispatcher.getPrimitiveTimers().cancelTimer(this);
+        notifyAll();
+        return true;
+    }
+
+    private boolean isTimerCancelled() {
+        final ScheduledFuture<?> currentScheduledFuture = scheduledFuture;
+        return (currentScheduledFuture != null) ? currentScheduledFuture.isCancelled() : timerState == TIMER_CANCELLED;
+    }
+
+    private boolean isTimerDone() {
+        final ScheduledFuture<?> currentScheduledFuture = scheduledFuture;
+        return (currentScheduledFuture != null) ? currentScheduledFuture.isDone() : timerState != TIMER_PENDING;
+    }
+
+    // returns false if the timer has neither fired nor been cancelled within the timeout
+    private boolean awaitTimer(long timeoutInNanos) throws InterruptedException, ExecutionException {
+        final ScheduledFuture<?> currentScheduledFuture = scheduledFuture;
+        if (currentScheduledFuture != null) {
+            try {
+                currentScheduledFuture.get(timeoutInNanos, NANOSECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            }
+        }
+        if (!awaitLocked(this::isTimerDone, timeoutInNanos)) {
+            return false;
+        }
+        if (timerState == TIMER_CANCELLED) {
+            throw new CancellationException();
+        }
+        return true;
+    }
+
+    // returns false if the condition has not become true within the timeout
+    private boolean awaitLocked(BooleanSupplier condition, long timeoutInNanos) throws InterruptedException {
+        if (condition.getAsBoolean()) {
+            return true;
+        }
+        final long startTimeInNanos = System.nanoTime();
+        long remainingTimeoutInNanos = timeoutInNanos;
+        synchronized (this) {
+            while (!condition.getAsBoolean()) {
+                if (remainingTimeoutInNanos <= 0) {
+                    return false;
+                }
+                NANOSECONDS.timedWait(this, remainingTimeoutInNanos);
+                remainingTimeoutInNanos = timeoutInNanos - (System.nanoTime() - startTimeInNanos);
+            }
+        }
+        return true;
+    }
+
+    protected void runLockedWithoutResult(Runnable job) {
+        synchronized (this) {
             job.run();
-        } finally {
-            reentrantLock.unlock();
         }
     }
 
     protected <ResultType> ResultType runLockedWithResult(Callable<ResultType> jobWithResult) {
-        reentrantLock.lock();
-        try {
-            return jobWithResult.call();
-        } catch (Exception e) {
-            throw new AssertionError("The callable parameter is not supposed to throw an exception!", e);
-        } finally {
-            reentrantLock.unlock();
+        synchronized (this) {
+            try {
+                return jobWithResult.call();
+            } catch (Exception e) {
+                throw new AssertionError("The callable parameter is not supposed to throw an exception!", e);
+            }
         }
     }
 
     protected void waitForScheduledFuture() {
         try {
-            scheduledFutureLatch.await();
+            awaitLocked(this::hasTimer, Long.MAX_VALUE);
         } catch (InterruptedException e) {
             throw new AssertionError("Interrupted while waiting for the setting of the scheduledFuture.", e);
         }
@@ -132,4 +558,4 @@ abstract class AbstractDynamicFuture<T> implements ScheduledFuture<T> {
     private TimeoutException createTimeoutException(long timeout, TimeUnit unit) {
         return new TimeoutException("Timeout of " + timeout + " " + unit.toChronoUnit().toString() + " is over!");
     }
-}
\ No newline at end of file
+}
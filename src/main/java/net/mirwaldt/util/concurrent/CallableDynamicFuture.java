@@ -1,25 +1,23 @@
 package net.mirwaldt.util.concurrent;
 
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 
-final class CallableDynamicFuture<V> extends AbstractDynamicFuture<V> implements Callable<V> {
+final class CallableDynamicFuture<V> extends AbstractDynamicFuture<V> {
     private final Callable<V> callable;
 
-    public CallableDynamicFuture(ExecutorService executorService, Callable<V> callable) {
-        super(executorService);
+    public CallableDynamicFuture(Dispatcher dispatcher, String tenant, Callable<V> callable) {
+        super(dispatcher, tenant, 0);
         this.callable = callable;
     }
 
     @Override
-    public V call() {
-        waitForScheduledFuture();
-        runLockedWithoutResult(() -> {
-            if (!scheduledFuture.isCancelled()) {
-                future = executorService.submit(callable);
-                futureLatch.countDown();
-            }
-        });
-        return null;
+    protected Callable<V> newCallable() {
+        return callable;
+    }
+
+    @Override
+    Runnable getTask() {
+        return new FutureTask<>(callable);
     }
 }
@@ -0,0 +1,161 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+final class DispatchLagMonitor implements Runnable {
+    static final long MIN_PROBE_INTERVAL_IN_NANOS = MILLISECONDS.toNanos(10);
+    static final long SCALE_COOLDOWN_IN_PROBE_INTERVALS = 10;
+    static final long RECOVERY_IN_PROBE_INTERVALS = 100;
+
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final long maxLagInNanos;
+    private final int maxSchedulerThreads;
+    private final int initialSchedulerThreads;
+    private final long probeIntervalInNanos;
+    private final Thread thread;
+
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder violations = new LongAdder();
+    private final LongAdder totalLagInNanos = new LongAdder();
+    private final AtomicLong maxLagSampleInNanos = new AtomicLong();
+    // the maximum lag recorded since the last evaluation by the monitor thread
+    private final AtomicLong windowMaxLagInNanos = new AtomicLong();
+    private final LongAdder scaleUps = new LongAdder();
+    private final LongAdder scaleDowns = new LongAdder();
+
+    // confined to the monitor thread
+    private long lastViolationTimeInNanos;
+    // confined to the monitor thread
+    private long lastScalingTimeInNanos;
+
+    DispatchLagMonitor(ScheduledExecutorService scheduledExecutorService, long maxLagInNanos,
+                       int maxSchedulerThreads, int initialSchedulerThreads) {
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.maxLagInNanos = maxLagInNanos;
+        this.maxSchedulerThreads = maxSchedulerThreads;
+        this.initialSchedulerThreads = initialSchedulerThreads;
+        this.probeIntervalInNanos = max(MIN_PROBE_INTERVAL_IN_NANOS, maxLagInNanos);
+        this.lastViolationTimeInNanos = System.nanoTime();
+        this.lastScalingTimeInNanos = lastViolationTimeInNanos - SCALE_COOLDOWN_IN_PROBE_INTERVALS * probeIntervalInNanos;
+        this.thread = new Thread(this, "DynamicPoolSizeScheduledExecutor-DispatchLagMonitor");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        thread.interrupt();
+    }
+
+    boolean isRunning() {
+        return thread.isAlive();
+    }
+
+    int getInitialSchedulerThreads() {
+        return initialSchedulerThreads;
+    }
+
+    // the probe detects lag even if no timer can fire because all scheduler threads are busy
+    @Override
+    public void run() {
+        limitSchedulerThreads();
+        try {
+            while (!Thread.currentThread().isInterrupted() && !scheduledExecutorService.isShutdown()) {
+                final CountDownLatch probeLatch = new CountDownLatch(1);
+                final long probeTimeInNanos = System.nanoTime();
+                scheduledExecutorService.execute(probeLatch::countDown);
+                while (!probeLatch.await(maxLagInNanos, NANOSECONDS)) {
+                    // a shutdown of the scheduler might have dropped the probe
+                    if (scheduledExecutorService.isShutdown()) {
+                        return;
+                    }
+                    evaluate(System.nanoTime() - probeTimeInNanos);
+                }
+                // the probe is not a timer and therefore only evaluated but not recorded
+                final long probeLagInNanos = System.nanoTime() - probeTimeInNanos;
+                evaluate(max(probeLagInNanos, windowMaxLagInNanos.getAndSet(0)));
+                NANOSECONDS.sleep(probeIntervalInNanos);
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            // the monitor was stopped or the scheduler was shut down
+        }
+    }
+
+    // only updates counters because it is called by the scheduler threads for each timer
+    void record(long lagInNanos) {
+        final long positiveLagInNanos = max(0, lagInNanos);
+        samples.increment();
+        totalLagInNanos.add(positiveLagInNanos);
+        maxLagSampleInNanos.accumulateAndGet(positiveLagInNanos, Math::max);
+        windowMaxLagInNanos.accumulateAndGet(positiveLagInNanos, Math::max);
+        if (maxLagInNanos < positiveLagInNanos) {
+            violations.increment();
+        }
+    }
+
+    DispatchLagStatistics toStatistics() {
+        return new DispatchLagStatistics(samples.sum(), violations.sum(), totalLagInNanos.sum(),
+                maxLagSampleInNanos.get(), getSchedulerThreads(scheduledExecutorService),
+                scaleUps.sum(), scaleDowns.sum());
+    }
+
+    private void evaluate(long lagInNanos) {
+        if (!(scheduledExecutorService instanceof ScheduledThreadPoolExecutor)) {
+            return;
+        }
+        final ScheduledThreadPoolExecutor scheduledThreadPoolExecutor =
+                (ScheduledThreadPoolExecutor) scheduledExecutorService;
+        final long nowInNanos = System.nanoTime();
+        if (nowInNanos - lastScalingTimeInNanos < SCALE_COOLDOWN_IN_PROBE_INTERVALS * probeIntervalInNanos) {
+            if (maxLagInNanos < lagInNanos) {
+                lastViolationTimeInNanos = nowInNanos;
+            }
+            return;
+        }
+        final int schedulerThreads = scheduledThreadPoolExecutor.getCorePoolSize();
+        if (maxLagInNanos < lagInNanos) {
+            lastViolationTimeInNanos = nowInNanos;
+            if (schedulerThreads < maxSchedulerThreads) {
+                scheduledThreadPoolExecutor.setCorePoolSize(schedulerThreads + 1);
+                lastScalingTimeInNanos = nowInNanos;
+                scaleUps.increment();
+            }
+        } else if (initialSchedulerThreads < schedulerThreads
+                && RECOVERY_IN_PROBE_INTERVALS * probeIntervalInNanos < nowInNanos - lastViolationTimeInNanos) {
+            scheduledThreadPoolExecutor.setCorePoolSize(schedulerThreads - 1);
+            lastScalingTimeInNanos = nowInNanos;
+            scaleDowns.increment();
+        }
+    }
+
+    // a replaced monitor might have added more scheduler threads than this monitor allows
+    private void limitSchedulerThreads() {
+        if (scheduledExecutorService instanceof ScheduledThreadPoolExecutor) {
+            final ScheduledThreadPoolExecutor scheduledThreadPoolExecutor =
+                    (ScheduledThreadPoolExecutor) scheduledExecutorService;
+            if (maxSchedulerThreads < scheduledThreadPoolExecutor.getCorePoolSize()) {
+                scheduledThreadPoolExecutor.setCorePoolSize(maxSchedulerThreads);
+                scaleDowns.increment();
+            }
+        }
+    }
+
+    static int getSchedulerThreads(ScheduledExecutorService scheduledExecutorService) {
+        if (scheduledExecutorService instanceof ScheduledThreadPoolExecutor) {
+            return ((ScheduledThreadPoolExecutor) scheduledExecutorService).getCorePoolSize();
+        } else {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public final class DispatchLagStatistics {
+    private final long samples;
+    private final long violations;
+    private final long totalLagInNanos;
+    private final long maxLagInNanos;
+    private final int schedulerThreads;
+    private final long scaleUps;
+    private final long scaleDowns;
+
+    DispatchLagStatistics(long samples, long violations, long totalLagInNanos, long maxLagInNanos,
+                          int schedulerThreads, long scaleUps, long scaleDowns) {
+        this.samples = samples;
+        this.violations = violations;
+        this.totalLagInNanos = totalLagInNanos;
+        this.maxLagInNanos = maxLagInNanos;
+        this.schedulerThreads = schedulerThreads;
+        this.scaleUps = scaleUps;
+        this.scaleDowns = scaleDowns;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public long getViolations() {
+        return violations;
+    }
+
+    public long getAverageLag(TimeUnit unit) {
+        return (samples == 0) ? 0 : unit.convert(totalLagInNanos / samples, NANOSECONDS);
+    }
+
+    public long getMaxLag(TimeUnit unit) {
+        return unit.convert(maxLagInNanos, NANOSECONDS);
+    }
+
+    // -1 if the scheduler is not a ScheduledThreadPoolExecutor
+    public int getSchedulerThreads() {
+        return schedulerThreads;
+    }
+
+    public long getScaleUps() {
+        return scaleUps;
+    }
+
+    public long getScaleDowns() {
+        return scaleDowns;
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchLagStatistics{" +
+                "samples=" + samples +
+                ", violations=" + violations +
+                ", totalLagInNanos=" + totalLagInNanos +
+                ", maxLagInNanos=" + maxLagInNanos +
+                ", schedulerThreads=" + schedulerThreads +
+                ", scaleUps=" + scaleUps +
+                ", scaleDowns=" + scaleDowns +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+final class DispatchedTask<V> extends FutureTask<V> {
+    private final AbstractDynamicFuture<?> dynamicFuture;
+
+    // guarded by the tenantLock of the Dispatcher
+    private long enqueueTimeInNanos;
+    // guarded by the tenantLock of the Dispatcher
+    private boolean handedOff;
+    // guarded by the tenantLock of the Dispatcher
+    private boolean released;
+
+    public DispatchedTask(AbstractDynamicFuture<?> dynamicFuture, Callable<V> callable) {
+        super(callable);
+        this.dynamicFuture = dynamicFuture;
+    }
+
+    public AbstractDynamicFuture<?> getDynamicFuture() {
+        return dynamicFuture;
+    }
+
+    long getEnqueueTimeInNanos() {
+        return enqueueTimeInNanos;
+    }
+
+    void setEnqueueTimeInNanos(long enqueueTimeInNanos) {
+        this.enqueueTimeInNanos = enqueueTimeInNanos;
+    }
+
+    boolean isHandedOff() {
+        return handedOff;
+    }
+
+    void setHandedOff(boolean handedOff) {
+        this.handedOff = handedOff;
+    }
+
+    boolean isReleased() {
+        return released;
+    }
+
+    void setReleased(boolean released) {
+        this.released = released;
+    }
+
+    // the caller might hold the lock of another future and therefore the scheduler terminates a periodic task
+    void reject(RejectedExecutionException e) {
+        dynamicFuture.dispatcher.completed(this);
+        if (dynamicFuture.isPeriodic()) {
+            try {
+                dynamicFuture.dispatcher.retime(() -> dynamicFuture.executed(e), 0);
+            } catch (RejectedExecutionException shutdownException) {
+                // the shutdown of the scheduler cancels the periodic task
+            }
+        }
+        super.setException(e);
+    }
+
+    // a task cancelled while it is running keeps its budget until the executor has returned from it
+    @Override
+    public void run() {
+        dynamicFuture.dispatcher.started(this);
+        try {
+            super.run();
+        } finally {
+            dynamicFuture.dispatcher.completed(this);
+        }
+    }
+
+    // releases the budget before the result becomes visible to waiting threads
+    @Override
+    protected void set(V v) {
+        dynamicFuture.dispatcher.completed(this);
+        dynamicFuture.executed(null);
+        super.set(v);
+    }
+
+    @Override
+    protected void setException(Throwable t) {
+        dynamicFuture.dispatcher.completed(this);
+        dynamicFuture.executed(t);
+        super.setException(t);
+    }
+
+    @Override
+    protected void done() {
+        dynamicFuture.dispatcher.cancelled(this);
+    }
+}
@@ -0,0 +1,473 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class Dispatcher {
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final ExecutorService executorService;
+    // null unless the scheduler keeps the futures themselves in its slot table
+    private final PrimitiveTimerScheduledExecutor primitiveTimers;
+    private final Map<String, TokenBucket> tokenBuckets = new ConcurrentHashMap<>();
+    // only for a ForkJoinPool whose shutdownNow() does not return the tasks which have not been started yet
+    private final Set<DispatchedTask<?>> unstartedTasks;
+    private volatile WaitStrategy waitStrategy = WaitStrategy.PARK;
+    private volatile DispatchLagMonitor dispatchLagMonitor;
+    // spins and yields of all calls of get() with the wait strategy SPIN_YIELD_PARK
+    private final LongAdder spinCount = new LongAdder();
+    private final LongAdder yieldCount = new LongAdder();
+
+    private final ReentrantLock tenantLock = new ReentrantLock();
+    private final Condition tenantQueuesEmpty = tenantLock.newCondition();
+    // guarded by tenantLock
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    // guarded by tenantLock
+    private double virtualTime;
+
+    // the futures whose timers have neither fired nor been cancelled are linked through the futures themselves
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    // guarded by pendingLock
+    private AbstractDynamicFuture<?> firstPendingFuture;
+    // written while holding pendingLock
+    private volatile boolean shuttingDown;
+
+    Dispatcher(ScheduledExecutorService scheduledExecutorService, ExecutorService executorService) {
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.executorService = executorService;
+        this.primitiveTimers = (scheduledExecutorService instanceof PrimitiveTimerScheduledExecutor)
+                ? (PrimitiveTimerScheduledExecutor) scheduledExecutorService : null;
+        this.unstartedTasks = (executorService instanceof ForkJoinPool) ? ConcurrentHashMap.newKeySet() : null;
+    }
+
+    PrimitiveTimerScheduledExecutor getPrimitiveTimers() {
+        return primitiveTimers;
+    }
+
+    WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    void recordWaiting(long spins, long yields) {
+        if (spins != 0) {
+            spinCount.add(spins);
+        }
+        if (yields != 0) {
+            yieldCount.add(yields);
+        }
+    }
+
+    long getSpinCount() {
+        return spinCount.sum();
+    }
+
+    long getYieldCount() {
+        return yieldCount.sum();
+    }
+
+    DispatchLagMonitor getDispatchLagMonitor() {
+        return dispatchLagMonitor;
+    }
+
+    void setDispatchLagMonitor(DispatchLagMonitor dispatchLagMonitor) {
+        final DispatchLagMonitor previousDispatchLagMonitor = this.dispatchLagMonitor;
+        this.dispatchLagMonitor = dispatchLagMonitor;
+        if (previousDispatchLagMonitor != null) {
+            previousDispatchLagMonitor.stop();
+        }
+        if (dispatchLagMonitor != null) {
+            dispatchLagMonitor.start();
+        }
+    }
+
+    void recordDispatchLag(long lagInNanos) {
+        final DispatchLagMonitor currentDispatchLagMonitor = dispatchLagMonitor;
+        if (currentDispatchLagMonitor != null) {
+            currentDispatchLagMonitor.record(lagInNanos);
+        }
+    }
+
+    // returns false if the executor is shutting down and the future must not be scheduled anymore
+    boolean register(AbstractDynamicFuture<?> dynamicFuture) {
+        pendingLock.lock();
+        try {
+            if (shuttingDown) {
+                return false;
+            }
+            // a short delay might have dispatched the future before it was registered
+            if (dynamicFuture.isPeriodic() ? !dynamicFuture.isTerminated() : !dynamicFuture.isDispatched()) {
+                dynamicFuture.nextPendingFuture = firstPendingFuture;
+                if (firstPendingFuture != null) {
+                    firstPendingFuture.previousPendingFuture = dynamicFuture;
+                }
+                firstPendingFuture = dynamicFuture;
+            }
+            return true;
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    void unregister(AbstractDynamicFuture<?> dynamicFuture) {
+        pendingLock.lock();
+        try {
+            if (dynamicFuture.previousPendingFuture != null) {
+                dynamicFuture.previousPendingFuture.nextPendingFuture = dynamicFuture.nextPendingFuture;
+            } else if (firstPendingFuture == dynamicFuture) {
+                firstPendingFuture = dynamicFuture.nextPendingFuture;
+            } else {
+                // not registered yet or already unregistered
+                return;
+            }
+            if (dynamicFuture.nextPendingFuture != null) {
+                dynamicFuture.nextPendingFuture.previousPendingFuture = dynamicFuture.previousPendingFuture;
+            }
+            dynamicFuture.previousPendingFuture = null;
+            dynamicFuture.nextPendingFuture = null;
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    // rejects the registration of new futures from now on
+    void startShutdown() {
+        pendingLock.lock();
+        try {
+            shuttingDown = true;
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    void setRateLimit(String tenantName, double permitsPerSecond, int burst) {
+        if (!(0 < permitsPerSecond)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive but is " + permitsPerSecond + "!");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be positive but is " + burst + "!");
+        }
+        tokenBuckets.put(tenantName, new TokenBucket(permitsPerSecond, burst, System.nanoTime()));
+    }
+
+    long reservePermit(String tenantName) {
+        final TokenBucket tokenBucket = (tenantName == null) ? null : tokenBuckets.get(tenantName);
+        return (tokenBucket == null) ? 0 : tokenBucket.reserve(System.nanoTime());
+    }
+
+    void releasePermit(String tenantName) {
+        final TokenBucket tokenBucket = (tenantName == null) ? null : tokenBuckets.get(tenantName);
+        if (tokenBucket != null) {
+            tokenBucket.release();
+        }
+    }
+
+    void startTimer(AbstractDynamicFuture<?> dynamicFuture, long delayInNanos) {
+        if (primitiveTimers != null) {
+            primitiveTimers.scheduleTimer(dynamicFuture, delayInNanos);
+        } else if (0 < dynamicFuture.period) {
+            dynamicFuture.setScheduledFuture(scheduledExecutorService.scheduleAtFixedRate(
+                    dynamicFuture, delayInNanos, dynamicFuture.period, TimeUnit.NANOSECONDS));
+        } else {
+            // the timer of a fixed delay is restarted after each execution because the scheduler does not run it
+            dynamicFuture.setScheduledFuture(
+                    scheduledExecutorService.schedule(dynamicFuture, delayInNanos, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    void restartTimer(AbstractDynamicFuture<?> dynamicFuture, long delayInNanos) {
+        if (primitiveTimers != null) {
+            primitiveTimers.rescheduleTimer(dynamicFuture, delayInNanos);
+        } else {
+            dynamicFuture.setScheduledFuture(
+                    scheduledExecutorService.schedule(dynamicFuture, delayInNanos, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    ScheduledFuture<?> retime(Runnable dispatch, long delayInNanos) {
+        return scheduledExecutorService.schedule(dispatch, delayInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void dispatch(DispatchedTask<?> dispatchedTask) {
+        final String tenantName = dispatchedTask.getDynamicFuture().getTenant();
+        if (tenantName == null) {
+            execute(dispatchedTask);
+        } else {
+            final List<DispatchedTask<?>> readyTasks;
+            tenantLock.lock();
+            try {
+                getTenant(tenantName).enqueue(dispatchedTask, virtualTime);
+                readyTasks = pollReadyTasks();
+            } finally {
+                tenantLock.unlock();
+            }
+            executeAll(readyTasks);
+        }
+    }
+
+    void completed(DispatchedTask<?> dispatchedTask) {
+        final String tenantName = dispatchedTask.getDynamicFuture().getTenant();
+        if (tenantName != null) {
+            final List<DispatchedTask<?>> readyTasks;
+            tenantLock.lock();
+            try {
+                getTenant(tenantName).release(dispatchedTask);
+                readyTasks = pollReadyTasks();
+            } finally {
+                tenantLock.unlock();
+            }
+            executeAll(readyTasks);
+        }
+    }
+
+    void cancelled(DispatchedTask<?> dispatchedTask) {
+        final String tenantName = dispatchedTask.getDynamicFuture().getTenant();
+        if (tenantName != null) {
+            tenantLock.lock();
+            try {
+                getTenant(tenantName).removeCancelled(dispatchedTask);
+            } finally {
+                tenantLock.unlock();
+            }
+        }
+    }
+
+    void setTenantBudget(String tenantName, int maxConcurrency, int weight, boolean borrowing) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive but is " + maxConcurrency + "!");
+        }
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be positive but is " + weight + "!");
+        }
+        final List<DispatchedTask<?>> readyTasks;
+        tenantLock.lock();
+        try {
+            getTenant(tenantName).setBudget(maxConcurrency, weight, borrowing);
+            readyTasks = pollReadyTasks();
+        } finally {
+            tenantLock.unlock();
+        }
+        executeAll(readyTasks);
+    }
+
+    TenantStatistics getTenantStatistics(String tenantName) {
+        tenantLock.lock();
+        try {
+            // an unknown tenant is not registered only because its statistics have been asked for
+            final Tenant tenant = tenants.get(tenantName);
+            return (tenant == null) ? new Tenant(tenantName).toStatistics() : tenant.toStatistics();
+        } finally {
+            tenantLock.unlock();
+        }
+    }
+
+    boolean awaitEmptyTenantQueues(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingTimeoutInNanos = unit.toNanos(timeout);
+        tenantLock.lock();
+        try {
+            while (hasQueuedTasks()) {
+                if (remainingTimeoutInNanos <= 0) {
+                    return false;
+                }
+                remainingTimeoutInNanos = tenantQueuesEmpty.awaitNanos(remainingTimeoutInNanos);
+            }
+            return true;
+        } finally {
+            tenantLock.unlock();
+        }
+    }
+
+    List<Runnable> cancelQueuedTasks() {
+        final List<DispatchedTask<?>> queuedTasks = new ArrayList<>();
+        tenantLock.lock();
+        try {
+            for (Tenant tenant : tenants.values()) {
+                queuedTasks.addAll(tenant.removeQueuedTasks());
+            }
+            tenantQueuesEmpty.signalAll();
+        } finally {
+            tenantLock.unlock();
+        }
+
+        final List<Runnable> result = new ArrayList<>();
+        for (DispatchedTask<?> queuedTask : queuedTasks) {
+            if (queuedTask.cancel(false)) {
+                result.add(queuedTask.getDynamicFuture().getTask());
+            }
+        }
+        return result;
+    }
+
+    List<AbstractDynamicFuture<?>> getPendingFutures() {
+        final List<AbstractDynamicFuture<?>> result = new ArrayList<>();
+        pendingLock.lock();
+        try {
+            for (AbstractDynamicFuture<?> pendingFuture = firstPendingFuture; pendingFuture != null;
+                 pendingFuture = pendingFuture.nextPendingFuture) {
+                result.add(pendingFuture);
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+        return result;
+    }
+
+    List<AbstractDynamicFuture<?>> getPendingFuturesByDelay() {
+        final List<AbstractDynamicFuture<?>> pendingFutures = getPendingFutures();
+        // the delays decrease while sorting and are therefore read only once
+        final long[] delaysInNanos = new long[pendingFutures.size()];
+        final Integer[] indexes = new Integer[pendingFutures.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            delaysInNanos[i] = pendingFutures.get(i).getDelay(TimeUnit.NANOSECONDS);
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, Comparator.comparingLong(index -> delaysInNanos[index]));
+
+        final List<AbstractDynamicFuture<?>> result = new ArrayList<>(indexes.length);
+        for (Integer index : indexes) {
+            result.add(pendingFutures.get(index));
+        }
+        return result;
+    }
+
+    // called by a DispatchedTask before it runs
+    void started(DispatchedTask<?> dispatchedTask) {
+        if (unstartedTasks != null) {
+            unstartedTasks.remove(dispatchedTask);
+        }
+    }
+
+    // must be called after the shutdownNow() of the executor service so that no task is started anymore
+    List<Runnable> cancelUnstartedTasks() {
+        final List<Runnable> result = new ArrayList<>();
+        if (unstartedTasks != null) {
+            for (DispatchedTask<?> unstartedTask : unstartedTasks) {
+                unstartedTasks.remove(unstartedTask);
+                if (unstartedTask.cancel(false)) {
+                    result.add(unstartedTask.getDynamicFuture().getTask());
+                }
+            }
+        }
+        return result;
+    }
+
+    static List<Runnable> unwrap(List<Runnable> runnables) {
+        final List<Runnable> result = new ArrayList<>(runnables.size());
+        for (Runnable runnable : runnables) {
+            if (runnable instanceof DispatchedTask) {
+                result.add(((DispatchedTask<?>) runnable).getDynamicFuture().getTask());
+            } else {
+                result.add(runnable);
+            }
+        }
+        return result;
+    }
+
+    // guarded by tenantLock
+    private Tenant getTenant(String tenantName) {
+        return tenants.computeIfAbsent(tenantName, Tenant::new);
+    }
+
+    // guarded by tenantLock
+    private List<DispatchedTask<?>> pollReadyTasks() {
+        final List<DispatchedTask<?>> result = new ArrayList<>();
+        Tenant tenant;
+        while ((tenant = selectTenantWithinBudget()) != null || (tenant = selectBorrowingTenant()) != null) {
+            final DispatchedTask<?> dispatchedTask = tenant.poll(!tenant.isWithinBudget());
+            if (dispatchedTask != null) {
+                virtualTime = tenant.getPass();
+                result.add(dispatchedTask);
+            }
+        }
+        if (!hasQueuedTasks()) {
+            tenantQueuesEmpty.signalAll();
+        }
+        return result;
+    }
+
+    // guarded by tenantLock
+    private Tenant selectTenantWithinBudget() {
+        Tenant result = null;
+        for (Tenant tenant : tenants.values()) {
+            if (tenant.hasQueuedTasks() && tenant.isWithinBudget()
+                    && (result == null || tenant.getPass() < result.getPass())) {
+                result = tenant;
+            }
+        }
+        return result;
+    }
+
+    // guarded by tenantLock
+    private Tenant selectBorrowingTenant() {
+        long runningTasks = 0;
+        long budget = 0;
+        Tenant result = null;
+        for (Tenant tenant : tenants.values()) {
+            if (tenant.isBudgeted()) {
+                runningTasks += tenant.getRunningTasks();
+                budget += tenant.getMaxConcurrency();
+            }
+            if (tenant.hasQueuedTasks() && tenant.isBorrowing()
+                    && (result == null || tenant.getPass() < result.getPass())) {
+                result = tenant;
+            }
+        }
+        // only the idle part of the budgets of all tenants can be borrowed
+        return (runningTasks < budget) ? result : null;
+    }
+
+    // guarded by tenantLock
+    private boolean hasQueuedTasks() {
+        for (Tenant tenant : tenants.values()) {
+            if (tenant.hasQueuedTasks()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void executeAll(List<DispatchedTask<?>> readyTasks) {
+        for (DispatchedTask<?> readyTask : readyTasks) {
+            try {
+                execute(readyTask);
+            } catch (RejectedExecutionException e) {
+                readyTask.reject(e);
+            }
+        }
+    }
+
+    private void execute(DispatchedTask<?> dispatchedTask) {
+        if (unstartedTasks == null) {
+            executorService.execute(dispatchedTask);
+            return;
+        }
+        unstartedTasks.add(dispatchedTask);
+        try {
+            executorService.execute(dispatchedTask);
+        } catch (RejectedExecutionException e) {
+            unstartedTasks.remove(dispatchedTask);
+            throw e;
+        }
+    }
+}
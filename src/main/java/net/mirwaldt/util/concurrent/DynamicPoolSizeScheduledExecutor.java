@@ -8,58 +8,248 @@ import java.util.concurrent.*;
 public class DynamicPoolSizeScheduledExecutor implements ScheduledExecutorService {
     private final ScheduledExecutorService scheduledExecutorService;
     private final ExecutorService executorService;
+    private final Dispatcher dispatcher;
 
     public DynamicPoolSizeScheduledExecutor(
             ScheduledExecutorService scheduledExecutorService, ExecutorService executorService) {
         this.scheduledExecutorService = scheduledExecutorService;
         this.executorService = executorService;
+        this.dispatcher = new Dispatcher(scheduledExecutorService, executorService);
+    }
+
+    public DynamicPoolSizeScheduledExecutor(
+            ScheduledExecutorService scheduledExecutorService, int parallelism, boolean asyncMode) {
+        this(scheduledExecutorService, new ForkJoinPool(
+                parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, asyncMode));
+    }
+
+    public static Runnable blocking(Runnable command) {
+        return new ManagedBlockingTask<>(Executors.callable(command));
+    }
+
+    public static <V> Callable<V> blocking(Callable<V> callable) {
+        return new ManagedBlockingTask<>(callable);
     }
 
     @Override
     public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
-        final RunnableDynamicFuture<?> runnableDynamicFuture = new RunnableDynamicFuture<Void>(executorService, command);
-        final ScheduledFuture<?> scheduledFuture = scheduledExecutorService.schedule(runnableDynamicFuture, delay, unit);
-        runnableDynamicFuture.setScheduledFuture(scheduledFuture);
-        return runnableDynamicFuture;
+        return schedule(null, command, delay, unit);
     }
 
     @Override
     public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-        final CallableDynamicFuture<V> callableDynamicFuture = new CallableDynamicFuture<V>(executorService, callable);
-        final ScheduledFuture<V> scheduledFuture = scheduledExecutorService.schedule(callableDynamicFuture, delay, unit);
-        callableDynamicFuture.setScheduledFuture(scheduledFuture);
+        return schedule(null, callable, delay, unit);
+    }
+
+    public ScheduledFuture<?> schedule(String tenant, Runnable command, long delay, TimeUnit unit) {
+        rejectIfShuttingDown();
+        final RunnableDynamicFuture<?> runnableDynamicFuture =
+                new RunnableDynamicFuture<Void>(dispatcher, tenant, command, 0);
+        dispatcher.startTimer(runnableDynamicFuture, unit.toNanos(delay));
+        register(runnableDynamicFuture);
+        return runnableDynamicFuture;
+    }
+
+    public <V> ScheduledFuture<V> schedule(String tenant, Callable<V> callable, long delay, TimeUnit unit) {
+        rejectIfShuttingDown();
+        final CallableDynamicFuture<V> callableDynamicFuture =
+                new CallableDynamicFuture<V>(dispatcher, tenant, callable);
+        dispatcher.startTimer(callableDynamicFuture, unit.toNanos(delay));
+        register(callableDynamicFuture);
         return callableDynamicFuture;
     }
 
     @Override
     public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
-        final RunnableDynamicFuture<?> runnableDynamicFuture = new RunnableDynamicFuture<Void>(executorService, command);
-        final ScheduledFuture<?> scheduledFuture =
-                scheduledExecutorService.scheduleAtFixedRate(command, initialDelay, period, unit);
-        runnableDynamicFuture.setScheduledFuture(scheduledFuture);
-        return runnableDynamicFuture;
+        return scheduleAtFixedRate(null, command, initialDelay, period, unit);
     }
 
     @Override
     public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
-        final RunnableDynamicFuture<?> runnableDynamicFuture = new RunnableDynamicFuture<Void>(executorService, command);
-        final ScheduledFuture<?> scheduledFuture =
-                scheduledExecutorService.scheduleWithFixedDelay(command, initialDelay, delay, unit);
-        runnableDynamicFuture.setScheduledFuture(scheduledFuture);
+        return scheduleWithFixedDelay(null, command, initialDelay, delay, unit);
+    }
+
+    public ScheduledFuture<?> scheduleAtFixedRate(
+            String tenant, Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive but is " + period + "!");
+        }
+        rejectIfShuttingDown();
+        final RunnableDynamicFuture<?> runnableDynamicFuture =
+                new RunnableDynamicFuture<Void>(dispatcher, tenant, command, unit.toNanos(period));
+        dispatcher.startTimer(runnableDynamicFuture, unit.toNanos(initialDelay));
+        register(runnableDynamicFuture);
         return runnableDynamicFuture;
     }
 
+    public ScheduledFuture<?> scheduleWithFixedDelay(
+            String tenant, Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("delay must be positive but is " + delay + "!");
+        }
+        rejectIfShuttingDown();
+        final RunnableDynamicFuture<?> runnableDynamicFuture =
+                new RunnableDynamicFuture<Void>(dispatcher, tenant, command, -unit.toNanos(delay));
+        dispatcher.startTimer(runnableDynamicFuture, unit.toNanos(initialDelay));
+        register(runnableDynamicFuture);
+        return runnableDynamicFuture;
+    }
+
+    private void rejectIfShuttingDown() {
+        if (dispatcher.isShuttingDown()) {
+            throw new RejectedExecutionException("The executor is shutting down!");
+        }
+    }
+
+    private void register(AbstractDynamicFuture<?> dynamicFuture) {
+        // the shutdown might have started after the check before the scheduling
+        if (!dispatcher.register(dynamicFuture)) {
+            dynamicFuture.cancel(false);
+            throw new RejectedExecutionException("The executor is shutting down!");
+        }
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        dispatcher.setWaitStrategy(waitStrategy);
+    }
+
+    public void setDispatchLagSlo(long maxLag, TimeUnit unit, int maxSchedulerThreads) {
+        if (maxLag < 1) {
+            throw new IllegalArgumentException("maxLag must be positive but is " + maxLag + "!");
+        }
+        if (maxSchedulerThreads < 1) {
+            throw new IllegalArgumentException(
+                    "maxSchedulerThreads must be positive but is " + maxSchedulerThreads + "!");
+        }
+        final DispatchLagMonitor previousDispatchLagMonitor = dispatcher.getDispatchLagMonitor();
+        // the scheduler threads added by a replaced monitor do not belong to the original size
+        final int initialSchedulerThreads = (previousDispatchLagMonitor == null)
+                ? DispatchLagMonitor.getSchedulerThreads(scheduledExecutorService)
+                : previousDispatchLagMonitor.getInitialSchedulerThreads();
+        if (scheduledExecutorService instanceof ScheduledThreadPoolExecutor) {
+            if (maxSchedulerThreads < initialSchedulerThreads) {
+                throw new IllegalArgumentException("maxSchedulerThreads must not be less than the core pool size "
+                        + initialSchedulerThreads + " of the scheduler but is " + maxSchedulerThreads + "!");
+            }
+        }
+        dispatcher.setDispatchLagMonitor(new DispatchLagMonitor(
+                scheduledExecutorService, unit.toNanos(maxLag), maxSchedulerThreads, initialSchedulerThreads));
+    }
+
+    public DispatchLagStatistics getDispatchLagStatistics() {
+        final DispatchLagMonitor dispatchLagMonitor = dispatcher.getDispatchLagMonitor();
+        if (dispatchLagMonitor == null) {
+            throw new IllegalStateException("No dispatch lag SLO has been set!");
+        }
+        return dispatchLagMonitor.toStatistics();
+    }
+
+    public void setRateLimit(String tenant, double permitsPerSecond, int burst) {
+        dispatcher.setRateLimit(tenant, permitsPerSecond, burst);
+    }
+
+    public void setTenantBudget(String tenant, int maxConcurrency, int weight, boolean borrowing) {
+        dispatcher.setTenantBudget(tenant, maxConcurrency, weight, borrowing);
+    }
+
+    public TenantStatistics getTenantStatistics(String tenant) {
+        return dispatcher.getTenantStatistics(tenant);
+    }
+
     @Override
     public void shutdown() {
+        dispatcher.startShutdown();
+        stopDispatchLagMonitor();
         scheduledExecutorService.shutdown();
+        // like a ScheduledThreadPoolExecutor, a shutdown cancels the periodic tasks
+        for (AbstractDynamicFuture<?> pendingFuture : dispatcher.getPendingFutures()) {
+            if (pendingFuture.isPeriodic()) {
+                pendingFuture.cancelPending();
+            }
+        }
         executorService.shutdown();
     }
 
     @Override
     public List<Runnable> shutdownNow() {
+        dispatcher.startShutdown();
+        stopDispatchLagMonitor();
+        scheduledExecutorService.shutdownNow();
+        final List<Runnable> result = cancelPendingFutures();
+        result.addAll(dispatcher.cancelQueuedTasks());
+        result.addAll(Dispatcher.unwrap(executorService.shutdownNow()));
+        result.addAll(dispatcher.cancelUnstartedTasks());
+        return result;
+    }
+
+    public List<Runnable> shutdownGracefully(long horizon, long timeout, TimeUnit unit, boolean runRemaining)
+            throws InterruptedException {
+        final WaitTimer waitTimer = new WaitTimer(timeout, unit);
+        final TimeUnit selectedUnit = waitTimer.getSelectedUnit();
+        waitTimer.start();
+        dispatcher.startShutdown();
+
+        final List<Runnable> result = new ArrayList<>();
+        final List<AbstractDynamicFuture<?>> dueFutures = new ArrayList<>();
+        for (AbstractDynamicFuture<?> pendingFuture : dispatcher.getPendingFuturesByDelay()) {
+            if (pendingFuture.isPeriodic()) {
+                // periodic tasks never become due for the last time
+                if (pendingFuture.cancelPending()) {
+                    result.add(pendingFuture.getTask());
+                }
+            } else if (horizon < pendingFuture.getDelay(unit)) {
+                if (runRemaining) {
+                    pendingFuture.dispatchNow();
+                } else if (pendingFuture.cancelPending()) {
+                    result.add(pendingFuture.getTask());
+                }
+            } else {
+                dueFutures.add(pendingFuture);
+            }
+        }
+
+        // the timers due within the horizon fire before the scheduler is shut down
+        // so that they do not depend on the shutdown policy of the scheduler
+        for (AbstractDynamicFuture<?> dueFuture : dueFutures) {
+            if (!dueFuture.awaitFired(waitTimer.nextRemainingTimeout(), selectedUnit)) {
+                result.addAll(shutdownNow());
+                return result;
+            }
+        }
+
+        stopDispatchLagMonitor();
+        scheduledExecutorService.shutdown();
+        if (!scheduledExecutorService.awaitTermination(waitTimer.nextRemainingTimeout(), selectedUnit)) {
+            result.addAll(shutdownNow());
+            return result;
+        }
+
+        if (!dispatcher.awaitEmptyTenantQueues(waitTimer.nextRemainingTimeout(), selectedUnit)) {
+            result.addAll(shutdownNow());
+            return result;
+        }
+
+        executorService.shutdown();
+        if (!executorService.awaitTermination(waitTimer.nextRemainingTimeout(), selectedUnit)) {
+            result.addAll(Dispatcher.unwrap(executorService.shutdownNow()));
+        }
+        return result;
+    }
+
+    private void stopDispatchLagMonitor() {
+        final DispatchLagMonitor dispatchLagMonitor = dispatcher.getDispatchLagMonitor();
+        if (dispatchLagMonitor != null) {
+            dispatchLagMonitor.stop();
+        }
+    }
+
+    private List<Runnable> cancelPendingFutures() {
         final List<Runnable> result = new ArrayList<>();
-        result.addAll(scheduledExecutorService.shutdownNow());
-        result.addAll(executorService.shutdownNow());
+        for (AbstractDynamicFuture<?> pendingFuture : dispatcher.getPendingFuturesByDelay()) {
+            if (pendingFuture.cancelPending()) {
+                result.add(pendingFuture.getTask());
+            }
+        }
         return result;
     }
 
@@ -0,0 +1,66 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+final class ManagedBlockingTask<V> implements Runnable, Callable<V> {
+    private final Callable<V> callable;
+
+    public ManagedBlockingTask(Callable<V> callable) {
+        this.callable = callable;
+    }
+
+    @Override
+    public void run() {
+        try {
+            call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    @Override
+    public V call() throws Exception {
+        final Blocker<V> blocker = new Blocker<>(callable);
+        ForkJoinPool.managedBlock(blocker);
+        return blocker.getResult();
+    }
+
+    private static final class Blocker<V> implements ForkJoinPool.ManagedBlocker {
+        private final Callable<V> callable;
+        private boolean done;
+        private V result;
+        private Exception exception;
+
+        private Blocker(Callable<V> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        public boolean block() {
+            try {
+                result = callable.call();
+            } catch (Exception e) {
+                exception = e;
+            } finally {
+                done = true;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+
+        private V getResult() throws Exception {
+            if (exception != null) {
+                throw exception;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+final class PrimitiveTimerFuture<V> implements RunnableScheduledFuture<V> {
+    static final int NEW = 0;
+    static final int COMPLETED = 1;
+    static final int EXCEPTIONAL = 2;
+    static final int CANCELLED = 3;
+
+    private final PrimitiveTimerScheduledExecutor executor;
+    // either runnable or callable is null to avoid an adapter for each timer
+    private final Runnable runnable;
+    private final Callable<V> callable;
+    // positive for a fixed rate, negative for a fixed delay and zero for a one-shot task
+    private final long period;
+
+    // guarded by the lock of the executor, -1 if the future has got no slot
+    private int slot = -1;
+    // written while holding the lock of the executor, a copy of the deadline in the heap
+    private volatile long deadline;
+    private volatile int state = NEW;
+    private Object outcome;
+
+    PrimitiveTimerFuture(PrimitiveTimerScheduledExecutor executor,
+                         Runnable runnable, Callable<V> callable, long period) {
+        this.executor = executor;
+        this.runnable = runnable;
+        this.callable = callable;
+        this.period = period;
+    }
+
+    long getPeriod() {
+        return period;
+    }
+
+    int getState() {
+        return state;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    // returns false if the task has thrown an exception
+    boolean runTask() {
+        try {
+            if (runnable != null) {
+                runnable.run();
+            } else {
+                outcome = callable.call();
+            }
+            return true;
+        } catch (Throwable t) {
+            outcome = t;
+            return false;
+        }
+    }
+
+    // guarded by the lock of the executor
+    boolean complete(int newState) {
+        if (state != NEW) {
+            return false;
+        }
+        state = newState;
+        synchronized (this) {
+            notifyAll();
+        }
+        return true;
+    }
+
+    // each future is waited for by its own monitor so that a completion only wakes up its own waiters
+    private boolean awaitDone(long timeoutInNanos) throws InterruptedException {
+        if (isDone()) {
+            return true;
+        }
+        final long startTimeInNanos = System.nanoTime();
+        long remainingTimeoutInNanos = timeoutInNanos;
+        synchronized (this) {
+            while (!isDone()) {
+                if (remainingTimeoutInNanos <= 0) {
+                    return false;
+                }
+                NANOSECONDS.timedWait(this, remainingTimeoutInNanos);
+                remainingTimeoutInNanos = timeoutInNanos - (System.nanoTime() - startTimeInNanos);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        if (state == NEW) {
+            final boolean successful = runTask();
+            executor.complete(this, successful ? COMPLETED : EXCEPTIONAL);
+        }
+    }
+
+    @Override
+    public boolean isPeriodic() {
+        return period != 0;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(deadline - System.nanoTime(), NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+        if (o == this) {
+            return 0;
+        }
+        return Long.compare(getDelay(NANOSECONDS), o.getDelay(NANOSECONDS));
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        // the timer thread is shared by all tasks and is therefore never interrupted
+        return executor.cancel(this);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return state != NEW;
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        awaitDone(Long.MAX_VALUE);
+        return report();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!awaitDone(unit.toNanos(timeout))) {
+            throw new TimeoutException("Timeout of " + timeout + " " + unit.toChronoUnit().toString() + " is over!");
+        }
+        return report();
+    }
+
+    @SuppressWarnings("unchecked")
+    private V report() throws ExecutionException {
+        final int currentState = state;
+        if (currentState == CANCELLED) {
+            throw new CancellationException();
+        } else if (currentState == EXCEPTIONAL) {
+            throw new ExecutionException((Throwable) outcome);
+        } else {
+            return (V) outcome;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.Arrays;
+
+// A 4-ary min heap of slots ordered by their deadlines.
+// A slot stays allocated after it has been polled until it is freed so that periodic tasks can reuse it.
+// Tasks with the same deadline are not guaranteed to be polled in FIFO order.
+final class PrimitiveTimerHeap {
+    private static final int ARITY = 4;
+
+    // indexed by slot
+    private long[] deadlines;
+    // indexed by slot
+    private Object[] tasks;
+    // indexed by slot, -1 if the slot is not in the heap
+    private int[] heapIndexes;
+    // indexed by heap index
+    private int[] heap;
+    private int size;
+
+    private int[] freeSlots;
+    private int freeSlotCount;
+    private int usedSlotCount;
+
+    PrimitiveTimerHeap(int initialCapacity) {
+        final int capacity = Math.max(ARITY, initialCapacity);
+        deadlines = new long[capacity];
+        tasks = new Object[capacity];
+        heapIndexes = new int[capacity];
+        heap = new int[capacity];
+        freeSlots = new int[capacity];
+    }
+
+    int add(long deadline, Object task) {
+        final int slot = allocateSlot();
+        tasks[slot] = task;
+        reschedule(slot, deadline);
+        return slot;
+    }
+
+    void reschedule(int slot, long deadline) {
+        deadlines[slot] = deadline;
+        heap[size] = slot;
+        heapIndexes[slot] = size;
+        siftUp(size++);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int peek() {
+        return (size == 0) ? -1 : heap[0];
+    }
+
+    int poll() {
+        if (size == 0) {
+            return -1;
+        }
+        final int slot = heap[0];
+        removeAt(0);
+        return slot;
+    }
+
+    boolean remove(int slot) {
+        final int heapIndex = heapIndexes[slot];
+        if (heapIndex < 0) {
+            return false;
+        }
+        removeAt(heapIndex);
+        return true;
+    }
+
+    void free(int slot) {
+        remove(slot);
+        tasks[slot] = null;
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    int[] getQueuedSlots() {
+        return Arrays.copyOf(heap, size);
+    }
+
+    boolean isQueued(int slot) {
+        return 0 <= heapIndexes[slot];
+    }
+
+    long getDeadline(int slot) {
+        return deadlines[slot];
+    }
+
+    Object getTask(int slot) {
+        return tasks[slot];
+    }
+
+    private int allocateSlot() {
+        if (0 < freeSlotCount) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (usedSlotCount == tasks.length) {
+            grow();
+        }
+        return usedSlotCount++;
+    }
+
+    private void grow() {
+        final int capacity = tasks.length * 2;
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        tasks = Arrays.copyOf(tasks, capacity);
+        heapIndexes = Arrays.copyOf(heapIndexes, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+    private void removeAt(int heapIndex) {
+        final int removedSlot = heap[heapIndex];
+        heapIndexes[removedSlot] = -1;
+        final int lastSlot = heap[--size];
+        if (heapIndex != size) {
+            heap[heapIndex] = lastSlot;
+            heapIndexes[lastSlot] = heapIndex;
+            siftDown(heapIndex);
+            if (heap[heapIndex] == lastSlot) {
+                siftUp(heapIndex);
+            }
+        }
+    }
+
+    private void siftUp(int heapIndex) {
+        final int slot = heap[heapIndex];
+        final long deadline = deadlines[slot];
+        while (0 < heapIndex) {
+            final int parentIndex = (heapIndex - 1) / ARITY;
+            final int parentSlot = heap[parentIndex];
+            if (0 <= deadline - deadlines[parentSlot]) {
+                break;
+            }
+            heap[heapIndex] = parentSlot;
+            heapIndexes[parentSlot] = heapIndex;
+            heapIndex = parentIndex;
+        }
+        heap[heapIndex] = slot;
+        heapIndexes[slot] = heapIndex;
+    }
+
+    private void siftDown(int heapIndex) {
+        final int slot = heap[heapIndex];
+        final long deadline = deadlines[slot];
+        while (true) {
+            final int firstChildIndex = heapIndex * ARITY + 1;
+            if (size <= firstChildIndex) {
+                break;
+            }
+            int minChildIndex = firstChildIndex;
+            final int lastChildIndex = Math.min(firstChildIndex + ARITY, size);
+            for (int childIndex = firstChildIndex + 1; childIndex < lastChildIndex; childIndex++) {
+                if (deadlines[heap[childIndex]] - deadlines[heap[minChildIndex]] < 0) {
+                    minChildIndex = childIndex;
+                }
+            }
+            final int minChildSlot = heap[minChildIndex];
+            if (0 <= deadlines[minChildSlot] - deadline) {
+                break;
+            }
+            heap[heapIndex] = minChildSlot;
+            heapIndexes[minChildSlot] = heapIndex;
+            heapIndex = minChildIndex;
+        }
+        heap[heapIndex] = slot;
+        heapIndexes[slot] = heapIndex;
+    }
+}
@@ -0,0 +1,380 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// A scheduler with a single timer thread which keeps the deadlines of its timers in primitive arrays
+// instead of a queue of ScheduledFutureTasks. It is meant to be used as the scheduler of a
+// DynamicPoolSizeScheduledExecutor with very many pending timers whose futures are kept in the slot table
+// themselves instead of being wrapped in a PrimitiveTimerFuture.
+public final class PrimitiveTimerScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+    private static final long MAX_DELAY_IN_NANOS = Long.MAX_VALUE >> 1;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Condition termination = lock.newCondition();
+    private final Thread timerThread;
+
+    // guarded by lock
+    private final PrimitiveTimerHeap heap;
+    // guarded by lock
+    private boolean shutdown;
+    // guarded by lock, the slot of the timer of a future which is firing or -1
+    private int firingSlot = -1;
+    private volatile boolean terminated;
+
+    public PrimitiveTimerScheduledExecutor(int initialCapacity) {
+        this(initialCapacity, Executors.defaultThreadFactory());
+    }
+
+    public PrimitiveTimerScheduledExecutor(int initialCapacity, ThreadFactory threadFactory) {
+        this.heap = new PrimitiveTimerHeap(initialCapacity);
+        this.timerThread = threadFactory.newThread(this::runTimers);
+        this.timerThread.start();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(new PrimitiveTimerFuture<Void>(this, command, null, 0), delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(new PrimitiveTimerFuture<V>(this, null, callable, 0), delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive but is " + period + "!");
+        }
+        return enqueue(new PrimitiveTimerFuture<Void>(this, command, null, unit.toNanos(period)), initialDelay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("delay must be positive but is " + delay + "!");
+        }
+        return enqueue(new PrimitiveTimerFuture<Void>(this, command, null, -unit.toNanos(delay)), initialDelay, unit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, NANOSECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        final List<AbstractDynamicFuture<?>> periodicTimers = new ArrayList<>();
+        lock.lock();
+        try {
+            shutdown = true;
+            // periodic tasks would never end
+            for (int slot : heap.getQueuedSlots()) {
+                final Object task = heap.getTask(slot);
+                if (task instanceof AbstractDynamicFuture) {
+                    final AbstractDynamicFuture<?> timer = (AbstractDynamicFuture<?>) task;
+                    if (timer.isPeriodic()) {
+                        releaseSlot(timer);
+                        periodicTimers.add(timer);
+                    }
+                } else {
+                    final PrimitiveTimerFuture<?> future = (PrimitiveTimerFuture<?>) task;
+                    if (future.isPeriodic()) {
+                        future.complete(PrimitiveTimerFuture.CANCELLED);
+                        releaseSlot(future);
+                    }
+                }
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        // the lock of a future is never acquired while holding the lock
+        for (AbstractDynamicFuture<?> periodicTimer : periodicTimers) {
+            periodicTimer.cancel(false);
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        final List<Runnable> result = new ArrayList<>();
+        lock.lock();
+        try {
+            shutdown = true;
+            for (int slot : heap.getQueuedSlots()) {
+                final Object task = heap.getTask(slot);
+                if (task instanceof AbstractDynamicFuture) {
+                    releaseSlot((AbstractDynamicFuture<?>) task);
+                } else {
+                    releaseSlot((PrimitiveTimerFuture<?>) task);
+                }
+                result.add((Runnable) task);
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingTimeoutInNanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!terminated) {
+                if (remainingTimeoutInNanos <= 0) {
+                    return false;
+                }
+                remainingTimeoutInNanos = termination.awaitNanos(remainingTimeoutInNanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean cancel(PrimitiveTimerFuture<?> future) {
+        lock.lock();
+        try {
+            if (!future.complete(PrimitiveTimerFuture.CANCELLED)) {
+                return false;
+            }
+            // the timer thread releases the slot of a running task after it has run
+            if (0 <= future.getSlot() && heap.isQueued(future.getSlot())) {
+                releaseSlot(future);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void complete(PrimitiveTimerFuture<?> future, int newState) {
+        lock.lock();
+        try {
+            future.complete(newState);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void scheduleTimer(AbstractDynamicFuture<?> timer, long delayInNanos) {
+        final long deadline = toDeadline(delayInNanos);
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Scheduler has been shut down!");
+            }
+            final int slot = heap.add(deadline, timer);
+            timer.timerSlot = slot;
+            if (heap.peek() == slot) {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // restarts the timer of a fixed delay whose slot is kept after it has fired
+    void rescheduleTimer(AbstractDynamicFuture<?> timer, long delayInNanos) {
+        final long deadline = toDeadline(delayInNanos);
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Scheduler has been shut down!");
+            }
+            final int slot = timer.timerSlot;
+            if (slot < 0 || heap.isQueued(slot)) {
+                return;
+            }
+            heap.reschedule(slot, deadline);
+            if (heap.peek() == slot) {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void cancelTimer(AbstractDynamicFuture<?> timer) {
+        lock.lock();
+        try {
+            // the timer thread releases the slot of a firing timer after it has fired
+            if (0 <= timer.timerSlot && timer.timerSlot != firingSlot) {
+                releaseSlot(timer);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getTimerDelay(AbstractDynamicFuture<?> timer, TimeUnit unit) {
+        lock.lock();
+        try {
+            final int slot = timer.timerSlot;
+            return (slot < 0) ? 0 : unit.convert(heap.getDeadline(slot) - System.nanoTime(), NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long toDeadline(long delayInNanos) {
+        return System.nanoTime() + min(MAX_DELAY_IN_NANOS, max(0, delayInNanos));
+    }
+
+    private <V> ScheduledFuture<V> enqueue(PrimitiveTimerFuture<V> future, long delay, TimeUnit unit) {
+        final long deadline = toDeadline(unit.toNanos(delay));
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Scheduler has been shut down!");
+            }
+            final int slot = heap.add(deadline, future);
+            future.setSlot(slot);
+            future.setDeadline(deadline);
+            if (heap.peek() == slot) {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    private void runTimers() {
+        lock.lock();
+        try {
+            while (true) {
+                final int slot = heap.peek();
+                if (slot < 0) {
+                    if (shutdown) {
+                        break;
+                    }
+                    available.awaitUninterruptibly();
+                } else {
+                    final long delayInNanos = heap.getDeadline(slot) - System.nanoTime();
+                    if (0 < delayInNanos) {
+                        awaitAvailableUninterruptibly(delayInNanos);
+                    } else {
+                        heap.poll();
+                        final Object task = heap.getTask(slot);
+                        if (task instanceof AbstractDynamicFuture) {
+                            fire((AbstractDynamicFuture<?>) task, slot, -delayInNanos);
+                        } else {
+                            run((PrimitiveTimerFuture<?>) task);
+                        }
+                    }
+                }
+            }
+        } finally {
+            terminated = true;
+            termination.signalAll();
+            lock.unlock();
+        }
+    }
+
+    // guarded by lock
+    private void run(PrimitiveTimerFuture<?> future) {
+        boolean successful = false;
+        lock.unlock();
+        try {
+            successful = future.runTask();
+        } finally {
+            lock.lock();
+            afterRun(future, successful);
+        }
+    }
+
+    // guarded by lock
+    private void fire(AbstractDynamicFuture<?> timer, int slot, long lagInNanos) {
+        firingSlot = slot;
+        lock.unlock();
+        try {
+            timer.fire(lagInNanos);
+        } finally {
+            lock.lock();
+            firingSlot = -1;
+        }
+        if (!timer.isPeriodic() || timer.isTerminated()) {
+            releaseSlot(timer);
+        } else if (0 < timer.period) {
+            if (shutdown) {
+                releaseSlot(timer);
+                lock.unlock();
+                try {
+                    timer.cancel(false);
+                } finally {
+                    lock.lock();
+                }
+            } else {
+                heap.reschedule(slot, heap.getDeadline(slot) + timer.period);
+            }
+        }
+        // the slot of a fixed delay is kept until the timer is restarted after the execution
+    }
+
+    // guarded by lock
+    private void afterRun(PrimitiveTimerFuture<?> future, boolean successful) {
+        if (!successful) {
+            future.complete(PrimitiveTimerFuture.EXCEPTIONAL);
+        } else if (!future.isPeriodic()) {
+            future.complete(PrimitiveTimerFuture.COMPLETED);
+        } else if (shutdown) {
+            future.complete(PrimitiveTimerFuture.CANCELLED);
+        } else if (future.getState() == PrimitiveTimerFuture.NEW) {
+            final int slot = future.getSlot();
+            final long period = future.getPeriod();
+            final long deadline = (0 < period) ? heap.getDeadline(slot) + period : System.nanoTime() - period;
+            heap.reschedule(slot, deadline);
+            future.setDeadline(deadline);
+            return;
+        }
+        releaseSlot(future);
+    }
+
+    // guarded by lock
+    private void releaseSlot(PrimitiveTimerFuture<?> future) {
+        heap.free(future.getSlot());
+        future.setSlot(-1);
+    }
+
+    // guarded by lock
+    private void releaseSlot(AbstractDynamicFuture<?> timer) {
+        heap.free(timer.timerSlot);
+        timer.timerSlot = -1;
+    }
+
+    // guarded by lock
+    private void awaitAvailableUninterruptibly(long timeoutInNanos) {
+        try {
+            available.awaitNanos(timeoutInNanos);
+        } catch (InterruptedException e) {
+            // only shutdown() and shutdownNow() stop the timer thread
+        }
+    }
+}
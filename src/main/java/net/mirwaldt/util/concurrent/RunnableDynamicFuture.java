@@ -1,23 +1,23 @@
 package net.mirwaldt.util.concurrent;
 
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 
-final class RunnableDynamicFuture<T> extends AbstractDynamicFuture<T> implements Runnable {
+final class RunnableDynamicFuture<T> extends AbstractDynamicFuture<T> {
     private final Runnable runnable;
 
-    public RunnableDynamicFuture(ExecutorService executorService, Runnable runnable) {
-        super(executorService);
+    public RunnableDynamicFuture(Dispatcher dispatcher, String tenant, Runnable runnable, long period) {
+        super(dispatcher, tenant, period);
         this.runnable = runnable;
     }
 
     @Override
-    public void run() {
-        waitForScheduledFuture();
-        runLockedWithoutResult(() -> {
-            if (!scheduledFuture.isCancelled()) {
-                future = executorService.submit(runnable);
-                futureLatch.countDown();
-            }
-        });
+    protected Callable<T> newCallable() {
+        return Executors.callable(runnable, null);
+    }
+
+    @Override
+    Runnable getTask() {
+        return runnable;
     }
 }
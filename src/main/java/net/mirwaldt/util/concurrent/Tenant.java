@@ -0,0 +1,118 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static java.lang.Math.max;
+
+// guarded by the tenantLock of the Dispatcher
+final class Tenant {
+    private final String name;
+    private final Deque<DispatchedTask<?>> queue = new ArrayDeque<>();
+
+    private int maxConcurrency = Integer.MAX_VALUE;
+    private int weight = 1;
+    private boolean borrowing;
+
+    private int runningTasks;
+    private double pass;
+
+    private long dispatchedTasks;
+    private long completedTasks;
+    private long borrowedDispatches;
+    private long totalQueueWaitInNanos;
+    private long maxQueueWaitInNanos;
+
+    Tenant(String name) {
+        this.name = name;
+    }
+
+    void setBudget(int maxConcurrency, int weight, boolean borrowing) {
+        this.maxConcurrency = maxConcurrency;
+        this.weight = weight;
+        this.borrowing = borrowing;
+    }
+
+    boolean isBudgeted() {
+        return maxConcurrency < Integer.MAX_VALUE;
+    }
+
+    boolean isBorrowing() {
+        return borrowing;
+    }
+
+    int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    int getRunningTasks() {
+        return runningTasks;
+    }
+
+    double getPass() {
+        return pass;
+    }
+
+    boolean hasQueuedTasks() {
+        return !queue.isEmpty();
+    }
+
+    boolean isWithinBudget() {
+        return runningTasks < maxConcurrency;
+    }
+
+    void enqueue(DispatchedTask<?> dispatchedTask, double virtualTime) {
+        if (queue.isEmpty() && runningTasks == 0) {
+            // an idle tenant must not catch up on the time it has been idle
+            pass = max(pass, virtualTime);
+        }
+        dispatchedTask.setEnqueueTimeInNanos(System.nanoTime());
+        queue.addLast(dispatchedTask);
+    }
+
+    DispatchedTask<?> poll(boolean borrowed) {
+        DispatchedTask<?> dispatchedTask;
+        do {
+            dispatchedTask = queue.pollFirst();
+        } while (dispatchedTask != null && dispatchedTask.isDone());
+
+        if (dispatchedTask != null) {
+            final long queueWaitInNanos = System.nanoTime() - dispatchedTask.getEnqueueTimeInNanos();
+            totalQueueWaitInNanos += queueWaitInNanos;
+            maxQueueWaitInNanos = max(maxQueueWaitInNanos, queueWaitInNanos);
+            dispatchedTask.setHandedOff(true);
+            runningTasks++;
+            dispatchedTasks++;
+            if (borrowed) {
+                borrowedDispatches++;
+            }
+            pass += 1.0 / weight;
+        }
+        return dispatchedTask;
+    }
+
+    void release(DispatchedTask<?> dispatchedTask) {
+        if (dispatchedTask.isHandedOff() && !dispatchedTask.isReleased()) {
+            dispatchedTask.setReleased(true);
+            runningTasks--;
+            completedTasks++;
+        }
+    }
+
+    void removeCancelled(DispatchedTask<?> dispatchedTask) {
+        if (!dispatchedTask.isHandedOff()) {
+            queue.remove(dispatchedTask);
+        }
+    }
+
+    Deque<DispatchedTask<?>> removeQueuedTasks() {
+        final Deque<DispatchedTask<?>> result = new ArrayDeque<>(queue);
+        queue.clear();
+        return result;
+    }
+
+    TenantStatistics toStatistics() {
+        return new TenantStatistics(name, runningTasks, queue.size(), dispatchedTasks, completedTasks,
+                borrowedDispatches, totalQueueWaitInNanos, maxQueueWaitInNanos);
+    }
+}
@@ -0,0 +1,74 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public final class TenantStatistics {
+    private final String tenant;
+    private final int runningTasks;
+    private final int queuedTasks;
+    private final long dispatchedTasks;
+    private final long completedTasks;
+    private final long borrowedDispatches;
+    private final long totalQueueWaitInNanos;
+    private final long maxQueueWaitInNanos;
+
+    TenantStatistics(String tenant, int runningTasks, int queuedTasks, long dispatchedTasks, long completedTasks,
+                     long borrowedDispatches, long totalQueueWaitInNanos, long maxQueueWaitInNanos) {
+        this.tenant = tenant;
+        this.runningTasks = runningTasks;
+        this.queuedTasks = queuedTasks;
+        this.dispatchedTasks = dispatchedTasks;
+        this.completedTasks = completedTasks;
+        this.borrowedDispatches = borrowedDispatches;
+        this.totalQueueWaitInNanos = totalQueueWaitInNanos;
+        this.maxQueueWaitInNanos = maxQueueWaitInNanos;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public int getRunningTasks() {
+        return runningTasks;
+    }
+
+    public int getQueuedTasks() {
+        return queuedTasks;
+    }
+
+    public long getDispatchedTasks() {
+        return dispatchedTasks;
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks;
+    }
+
+    public long getBorrowedDispatches() {
+        return borrowedDispatches;
+    }
+
+    public long getTotalQueueWait(TimeUnit unit) {
+        return unit.convert(totalQueueWaitInNanos, NANOSECONDS);
+    }
+
+    public long getMaxQueueWait(TimeUnit unit) {
+        return unit.convert(maxQueueWaitInNanos, NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "TenantStatistics{" +
+                "tenant='" + tenant + '\'' +
+                ", runningTasks=" + runningTasks +
+                ", queuedTasks=" + queuedTasks +
+                ", dispatchedTasks=" + dispatchedTasks +
+                ", completedTasks=" + completedTasks +
+                ", borrowedDispatches=" + borrowedDispatches +
+                ", totalQueueWaitInNanos=" + totalQueueWaitInNanos +
+                ", maxQueueWaitInNanos=" + maxQueueWaitInNanos +
+                '}';
+    }
+}
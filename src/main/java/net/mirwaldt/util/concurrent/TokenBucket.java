@@ -0,0 +1,54 @@
+package net.mirwaldt.util.concurrent;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Math.min;
+
+final class TokenBucket {
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final double permitsPerNano;
+    private final int burst;
+
+    private final ReentrantLock reentrantLock = new ReentrantLock();
+    // guarded by reentrantLock, negative if permits have been reserved in advance
+    private double availablePermits;
+    // guarded by reentrantLock
+    private long lastRefillTimeInNanos;
+
+    TokenBucket(double permitsPerSecond, int burst, long nowInNanos) {
+        this.permitsPerNano = permitsPerSecond / NANOS_PER_SECOND;
+        this.burst = burst;
+        this.availablePermits = burst;
+        this.lastRefillTimeInNanos = nowInNanos;
+    }
+
+    // reserves a permit and returns how long the caller has to wait until it may use it
+    long reserve(long nowInNanos) {
+        reentrantLock.lock();
+        try {
+            if (0 < nowInNanos - lastRefillTimeInNanos) {
+                availablePermits = min(burst, availablePermits + (nowInNanos - lastRefillTimeInNanos) * permitsPerNano);
+                lastRefillTimeInNanos = nowInNanos;
+            }
+            availablePermits -= 1;
+            if (0 <= availablePermits) {
+                return 0;
+            } else {
+                return (long) Math.ceil(-availablePermits / permitsPerNano);
+            }
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    // gives back a reserved permit which has not been used
+    void release() {
+        reentrantLock.lock();
+        try {
+            availablePermits = min(burst, availablePermits + 1);
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package net.mirwaldt.util.concurrent;
+
+public enum WaitStrategy {
+    // get() parks immediately
+    PARK,
+    // get() spins and yields first if the task is due within a millisecond, then parks;
+    // on a single processor get() only yields
+    SPIN_YIELD_PARK
+}
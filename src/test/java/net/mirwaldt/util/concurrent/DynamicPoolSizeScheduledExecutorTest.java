@@ -6,12 +6,17 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.stream.Stream;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DynamicPoolSizeScheduledExecutorTest {
@@ -45,6 +50,92 @@ public class DynamicPoolSizeScheduledExecutorTest {
         executor.shutdown();
     }
 
+    @Timeout(5)
+    @ParameterizedTest
+    @MethodSource("argumentsForOneExecution")
+    void givenPrimitiveTimerScheduler_whenScheduledWithDelay_thenExecutedAfterDelay(
+            Recording recording, boolean useTimeoutOfGetMethod)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                new PrimitiveTimerScheduledExecutor(16), Executors.newSingleThreadExecutor());
+        final long scheduleTimeInMillis = System.currentTimeMillis();
+
+        final ScheduledFuture<?> scheduledFuture = actScheduleWithDelay(recording, executor);
+
+        assertStatesAndWaitForHavingBeenExecutedOnceWithDelay(useTimeoutOfGetMethod, scheduledFuture);
+        assertExecutedAfterDelayInTime(recording, scheduleTimeInMillis);
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, SECONDS), "Executor has not been terminated.");
+    }
+
+    @Timeout(5)
+    @Test
+    void givenPrimitiveTimerScheduler_whenCancelled_thenSlotReleasedAndTaskNotExecuted() throws InterruptedException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                new PrimitiveTimerScheduledExecutor(16), Executors.newSingleThreadExecutor());
+        final RecordingRunnable recordingRunnable = new RecordingRunnable(1);
+
+        final ScheduledFuture<?> scheduledFuture = executor.schedule(recordingRunnable, 100, TimeUnit.MILLISECONDS);
+        assertTrue(0 <= ((AbstractDynamicFuture<?>) scheduledFuture).timerSlot, "Timer has not got a slot.");
+        assertTrue(scheduledFuture.cancel(false), "Timer could not be cancelled.");
+
+        assertEquals(-1, ((AbstractDynamicFuture<?>) scheduledFuture).timerSlot, "Slot has not been released.");
+        assertTrue(scheduledFuture.isCancelled(), "Timer must be 'cancelled' if it has been cancelled.");
+        assertTrue(scheduledFuture.isDone(), "Timer must be 'done' after it has been cancelled.");
+        assertThrows(CancellationException.class, () -> scheduledFuture.get(1, SECONDS));
+        sleepUninterruptedly(200);
+        assertEquals(1, recordingRunnable.getCountDownLatch().getCount(), "Cancelled task must not be executed.");
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, SECONDS), "Executor has not been terminated.");
+    }
+
+    @Timeout(5)
+    @ParameterizedTest
+    @MethodSource("argumentsForFixedRate")
+    void givenPrimitiveTimerScheduler_whenScheduledPeriodically_thenExecutedThreeTimesUntilCancelled(boolean fixedRate)
+            throws InterruptedException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                new PrimitiveTimerScheduledExecutor(16), Executors.newSingleThreadExecutor());
+        final RecordingRunnable recordingRunnable = new RecordingRunnable(3);
+
+        final ScheduledFuture<?> scheduledFuture = fixedRate
+                ? executor.scheduleAtFixedRate(recordingRunnable, 10, 10, TimeUnit.MILLISECONDS)
+                : executor.scheduleWithFixedDelay(recordingRunnable, 10, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(recordingRunnable.getCountDownLatch().await(2, SECONDS), "Task has not been executed three times.");
+        assertFalse(scheduledFuture.isDone(), "Periodic task cannot be 'done' before it has been cancelled.");
+        assertTrue(scheduledFuture.cancel(false), "Periodic task could not be prevented from executing again");
+        assertTrue(scheduledFuture.isCancelled(), "Periodic task must be 'cancelled' if it has been cancelled.");
+        assertThrows(CancellationException.class, () -> scheduledFuture.get(1, SECONDS));
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, SECONDS), "Executor has not been terminated.");
+        assertEquals(-1, ((AbstractDynamicFuture<?>) scheduledFuture).timerSlot, "Slot has not been released.");
+    }
+
+    @Timeout(5)
+    @Test
+    void givenPrimitiveTimerSchedulerWithPendingTimers_whenShutdownNow_thenOriginalTasksReturned()
+            throws InterruptedException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                new PrimitiveTimerScheduledExecutor(16), Executors.newSingleThreadExecutor());
+        final RecordingRunnable delayedRunnable = new RecordingRunnable(1);
+        final RecordingRunnable periodicRunnable = new RecordingRunnable(1);
+
+        final ScheduledFuture<?> delayedFuture = executor.schedule(delayedRunnable, 60, SECONDS);
+        final ScheduledFuture<?> periodicFuture = executor.scheduleAtFixedRate(periodicRunnable, 60, 60, SECONDS);
+        final List<Runnable> notExecutedTasks = executor.shutdownNow();
+
+        assertEquals(2, notExecutedTasks.size());
+        assertTrue(notExecutedTasks.contains(delayedRunnable), "Delayed task has not been returned.");
+        assertTrue(notExecutedTasks.contains(periodicRunnable), "Periodic task has not been returned.");
+        assertTrue(delayedFuture.isCancelled(), "Delayed task must be 'cancelled' by shutdownNow.");
+        assertTrue(periodicFuture.isCancelled(), "Periodic task must be 'cancelled' by shutdownNow.");
+        assertTrue(executor.awaitTermination(1, SECONDS), "Executor has not been terminated.");
+    }
+
     private void assertStatesAndWaitForHavingBeenExecutedOnceWithDelay(
             boolean useTimeoutOfGetMethod, ScheduledFuture<?> scheduledFuture)
             throws InterruptedException, ExecutionException, TimeoutException {
@@ -203,6 +294,649 @@ public class DynamicPoolSizeScheduledExecutorTest {
         }
     }
 
+    @Timeout(5)
+    @Test
+    void givenForkJoinModeWithParallelismOne_whenBlockingTasksScheduled_thenPoolCompensatesBlockedWorker()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                Executors.newSingleThreadScheduledExecutor(), 1, true);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        final ScheduledFuture<Boolean> blockingFuture = executor.schedule(
+                DynamicPoolSizeScheduledExecutor.blocking(() -> releaseLatch.await(3, SECONDS)),
+                10, TimeUnit.MILLISECONDS);
+        final ScheduledFuture<?> releasingFuture = executor.schedule(
+                DynamicPoolSizeScheduledExecutor.blocking((Runnable) releaseLatch::countDown),
+                100, TimeUnit.MILLISECONDS);
+
+        releasingFuture.get(2, SECONDS);
+        assertTrue(blockingFuture.get(2, SECONDS),
+                "Blocked task was not released by the task scheduled after it.");
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenTimersWithinAndBeyondHorizon_whenShutdownGracefully_thenDueTimerRunAndOriginalRemainingTaskReturned()
+            throws InterruptedException {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+        final RecordingRunnable dueRunnable = new RecordingRunnable(1);
+        final RecordingRunnable remainingRunnable = new RecordingRunnable(1);
+
+        executor.schedule(dueRunnable, 200, TimeUnit.MILLISECONDS);
+        final ScheduledFuture<?> remainingFuture = executor.schedule(remainingRunnable, 60, SECONDS);
+
+        final List<Runnable> notExecutedTasks =
+                executor.shutdownGracefully(1000, 3000, TimeUnit.MILLISECONDS, false);
+
+        assertEquals(List.of(remainingRunnable), notExecutedTasks);
+        assertEquals(0, dueRunnable.getCountDownLatch().getCount(),
+                "Runnable within the horizon has not been executed.");
+        assertEquals(1, remainingRunnable.getCountDownLatch().getCount(),
+                "Runnable beyond the horizon must not be executed.");
+        assertTrue(remainingFuture.isCancelled(),
+                "Runnable beyond the horizon must be 'cancelled'.");
+        assertTrue(executor.isTerminated(), "Executor has not been terminated.");
+    }
+
+    @Timeout(5)
+    @Test
+    void givenTimerBeyondHorizon_whenShutdownGracefullyAndRunRemaining_thenRemainingTimerRunImmediately()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+        final RecordingCallable<?> remainingCallable = new RecordingCallable<>(1);
+
+        final ScheduledFuture<?> remainingFuture = executor.schedule(remainingCallable, 60, SECONDS);
+
+        final List<Runnable> notExecutedTasks =
+                executor.shutdownGracefully(1000, 3000, TimeUnit.MILLISECONDS, true);
+
+        assertTrue(notExecutedTasks.isEmpty(), "No task is expected to be returned.");
+        remainingFuture.get(1, SECONDS);
+        assertTrue(remainingFuture.isDone(),
+                "Callable must be 'done' after it has been executed.");
+        assertFalse(remainingFuture.isCancelled(),
+                "Callable cannot be 'cancelled' if it has been executed.");
+        assertTrue(executor.isTerminated(), "Executor has not been terminated.");
+    }
+
+    @Timeout(5)
+    @Test
+    void givenSchedulerDroppingDelayedTasksOnShutdown_whenShutdownGracefully_thenDueTimerRunAndPeriodicTaskReturned()
+            throws InterruptedException {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        final DynamicPoolSizeScheduledExecutor executor =
+                new DynamicPoolSizeScheduledExecutor(scheduler, Executors.newSingleThreadExecutor());
+        final RecordingRunnable dueRunnable = new RecordingRunnable(1);
+        final RecordingRunnable periodicRunnable = new RecordingRunnable(1);
+
+        executor.schedule(dueRunnable, 200, TimeUnit.MILLISECONDS);
+        final ScheduledFuture<?> periodicFuture =
+                executor.scheduleAtFixedRate(periodicRunnable, 60, 60, SECONDS);
+
+        final List<Runnable> notExecutedTasks =
+                executor.shutdownGracefully(1000, 3000, TimeUnit.MILLISECONDS, false);
+
+        assertEquals(List.of(periodicRunnable), notExecutedTasks);
+        assertEquals(0, dueRunnable.getCountDownLatch().getCount(),
+                "Runnable within the horizon has not been executed.");
+        assertTrue(periodicFuture.isCancelled(), "Periodic runnable must be 'cancelled'.");
+        assertTrue(executor.isTerminated(), "Executor has not been terminated.");
+    }
+
+    @Timeout(5)
+    @Test
+    void givenPendingTimer_whenShutdownNow_thenOriginalTaskReturned() {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+        final RecordingRunnable recordingRunnable = new RecordingRunnable(1);
+
+        executor.schedule(recordingRunnable, 60, SECONDS);
+
+        assertEquals(List.of(recordingRunnable), executor.shutdownNow());
+    }
+
+    @Timeout(5)
+    @Test
+    void givenForkJoinModeWithQueuedTask_whenShutdownNow_thenQueuedTaskReturnedAndCancelled()
+            throws InterruptedException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                Executors.newSingleThreadScheduledExecutor(), 1, false);
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final RecordingRunnable queuedRunnable = new RecordingRunnable(1);
+
+        executor.schedule(() -> {
+            startedLatch.countDown();
+            awaitUninterruptedly(releaseLatch);
+        }, 0, TimeUnit.MILLISECONDS);
+        awaitUninterruptedly(startedLatch);
+        final ScheduledFuture<?> queuedFuture = executor.schedule(queuedRunnable, 0, TimeUnit.MILLISECONDS);
+        // the queued task is dispatched to the pool but cannot start before the running task has returned
+        sleepUninterruptedly(100);
+
+        final List<Runnable> notExecutedTasks = executor.shutdownNow();
+        releaseLatch.countDown();
+
+        assertEquals(List.of(queuedRunnable), notExecutedTasks);
+        assertThrows(CancellationException.class, () -> queuedFuture.get(2, SECONDS));
+        assertEquals(1, queuedRunnable.getCountDownLatch().getCount(), "Queued runnable must not be executed.");
+    }
+
+    @Timeout(5)
+    @Test
+    void givenShutdownGracefullyDraining_whenScheduled_thenRejectedExecutionExceptionThrown()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+        final RecordingRunnable dueRunnable = new RecordingRunnable(1);
+        executor.schedule(dueRunnable, 500, TimeUnit.MILLISECONDS);
+
+        final Future<List<Runnable>> shutdownFuture = Executors.newSingleThreadExecutor().submit(
+                () -> executor.shutdownGracefully(1000, 3000, TimeUnit.MILLISECONDS, false));
+        // the due timer keeps the shutdown draining
+        sleepUninterruptedly(100);
+
+        assertThrows(RejectedExecutionException.class,
+                () -> executor.schedule(new RecordingRunnable(1), 10, TimeUnit.MILLISECONDS));
+        assertThrows(RejectedExecutionException.class,
+                () -> executor.schedule(new RecordingCallable<>(1), 10, TimeUnit.MILLISECONDS));
+        assertThrows(RejectedExecutionException.class,
+                () -> executor.scheduleAtFixedRate(new RecordingRunnable(1), 10, 10, TimeUnit.MILLISECONDS));
+        assertThrows(RejectedExecutionException.class,
+                () -> executor.scheduleWithFixedDelay(new RecordingRunnable(1), 10, 10, TimeUnit.MILLISECONDS));
+
+        assertTrue(shutdownFuture.get(3, SECONDS).isEmpty(), "No task is expected to be returned.");
+        assertEquals(0, dueRunnable.getCountDownLatch().getCount(), "Due runnable has not been executed.");
+        assertTrue(executor.isTerminated(), "Executor has not been terminated.");
+    }
+
+    @Timeout(5)
+    @Test
+    void givenTenantBudgets_whenTenantBursts_thenOnlyItsBudgetIsUsedAndOtherTenantIsDispatched()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                Executors.newSingleThreadScheduledExecutor(), Executors.newFixedThreadPool(4));
+        executor.setTenantBudget("bursting", 1, 1, false);
+        executor.setTenantBudget("other", 1, 1, false);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        final List<ScheduledFuture<Boolean>> burstingFutures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            burstingFutures.add(executor.schedule(
+                    "bursting", () -> releaseLatch.await(3, SECONDS), 10, TimeUnit.MILLISECONDS));
+        }
+        executor.schedule("other", new RecordingRunnable(1), 50, TimeUnit.MILLISECONDS).get(1, SECONDS);
+
+        final TenantStatistics burstingStatistics = executor.getTenantStatistics("bursting");
+        assertEquals(1, burstingStatistics.getRunningTasks());
+        assertEquals(2, burstingStatistics.getQueuedTasks());
+        assertEquals(1, executor.getTenantStatistics("other").getCompletedTasks());
+
+        releaseLatch.countDown();
+        for (ScheduledFuture<Boolean> burstingFuture : burstingFutures) {
+            assertTrue(burstingFuture.get(1, SECONDS), "Task of bursting tenant has not been released.");
+        }
+        assertEquals(3, executor.getTenantStatistics("bursting").getCompletedTasks());
+        assertEquals(0, executor.getTenantStatistics("bursting").getBorrowedDispatches());
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenIdleTenant_whenOtherTenantMayBorrow_thenIdleBudgetIsBorrowed()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                Executors.newSingleThreadScheduledExecutor(), Executors.newFixedThreadPool(4));
+        executor.setTenantBudget("borrowing", 1, 1, true);
+        executor.setTenantBudget("idle", 1, 1, false);
+        final CountDownLatch startedLatch = new CountDownLatch(2);
+
+        final ScheduledFuture<Boolean> firstFuture = executor.schedule("borrowing",
+                () -> { startedLatch.countDown(); return startedLatch.await(3, SECONDS); }, 10, TimeUnit.MILLISECONDS);
+        final ScheduledFuture<Boolean> secondFuture = executor.schedule("borrowing",
+                () -> { startedLatch.countDown(); return startedLatch.await(3, SECONDS); }, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(firstFuture.get(1, SECONDS), "Both tasks must run at the same time.");
+        assertTrue(secondFuture.get(1, SECONDS), "Both tasks must run at the same time.");
+        assertEquals(1, executor.getTenantStatistics("borrowing").getBorrowedDispatches());
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenTenantsWithUnequalWeights_whenBothBorrow_thenIdleBudgetIsSharedByWeight() {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                Executors.newSingleThreadScheduledExecutor(), Executors.newFixedThreadPool(10));
+        executor.setTenantBudget("lending", 8, 1, false);
+        executor.setTenantBudget("heavy", 1, 3, true);
+        executor.setTenantBudget("light", 1, 1, true);
+        final CountDownLatch lendingLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        for (int i = 0; i < 8; i++) {
+            executor.schedule("lending", () -> awaitUninterruptedly(lendingLatch), 0, TimeUnit.MILLISECONDS);
+        }
+        while (executor.getTenantStatistics("lending").getRunningTasks() < 8) {
+            sleepUninterruptedly(1);
+        }
+        for (int i = 0; i < 10; i++) {
+            executor.schedule("heavy", () -> awaitUninterruptedly(releaseLatch), 0, TimeUnit.MILLISECONDS);
+            executor.schedule("light", () -> awaitUninterruptedly(releaseLatch), 0, TimeUnit.MILLISECONDS);
+        }
+        while (executor.getTenantStatistics("heavy").getQueuedTasks() < 9
+                || executor.getTenantStatistics("light").getQueuedTasks() < 9) {
+            sleepUninterruptedly(1);
+        }
+
+        lendingLatch.countDown();
+        while (executor.getTenantStatistics("heavy").getBorrowedDispatches()
+                + executor.getTenantStatistics("light").getBorrowedDispatches() < 8) {
+            sleepUninterruptedly(1);
+        }
+
+        final long heavyBorrowedDispatches = executor.getTenantStatistics("heavy").getBorrowedDispatches();
+        final long lightBorrowedDispatches = executor.getTenantStatistics("light").getBorrowedDispatches();
+        assertTrue(5 <= heavyBorrowedDispatches && heavyBorrowedDispatches <= 7,
+                "Tenant with weight 3 must get about three quarters of the idle budget but got "
+                        + heavyBorrowedDispatches + " of 8 slots.");
+        assertEquals(8, heavyBorrowedDispatches + lightBorrowedDispatches,
+                "Borrowing must stop when the budgets of all tenants are used.");
+
+        releaseLatch.countDown();
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenRunningTenantTask_whenCancelled_thenBudgetIsReleasedOnlyAfterTaskHasReturned()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                Executors.newSingleThreadScheduledExecutor(), Executors.newFixedThreadPool(2));
+        executor.setTenantBudget("tenant", 1, 1, false);
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        final ScheduledFuture<?> runningFuture = executor.schedule("tenant", () -> {
+            startedLatch.countDown();
+            awaitUninterruptedly(releaseLatch);
+        }, 0, TimeUnit.MILLISECONDS);
+        awaitUninterruptedly(startedLatch);
+        final RecordingRunnable queuedRunnable = new RecordingRunnable(1);
+        final ScheduledFuture<?> queuedFuture = executor.schedule("tenant", queuedRunnable, 0, TimeUnit.MILLISECONDS);
+        while (executor.getTenantStatistics("tenant").getQueuedTasks() < 1) {
+            sleepUninterruptedly(1);
+        }
+
+        assertTrue(runningFuture.cancel(false), "Running task must be cancellable.");
+        sleepUninterruptedly(50);
+        assertEquals(1, executor.getTenantStatistics("tenant").getRunningTasks(),
+                "Cancelled task is still running and must keep its budget.");
+        assertEquals(1, queuedRunnable.getCountDownLatch().getCount(),
+                "Queued task must wait until the cancelled task has returned.");
+
+        releaseLatch.countDown();
+        queuedFuture.get(1, SECONDS);
+        assertEquals(0, queuedRunnable.getCountDownLatch().getCount(), "Queued task has not been executed.");
+
+        executor.shutdown();
+    }
+
+    @Test
+    void givenUnknownTenant_whenGetTenantStatistics_thenEmptyStatisticsReturned() {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+
+        final TenantStatistics tenantStatistics = executor.getTenantStatistics("unknown");
+
+        assertEquals("unknown", tenantStatistics.getTenant());
+        assertEquals(0, tenantStatistics.getDispatchedTasks());
+        assertEquals(0, tenantStatistics.getQueuedTasks());
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @ParameterizedTest
+    @MethodSource("argumentsForOneExecution")
+    void givenSpinYieldParkWaitStrategy_whenScheduledWithShortDelay_thenResultReturnedAfterExecution(
+            Recording recording, boolean useTimeoutOfGetMethod)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+        executor.setWaitStrategy(WaitStrategy.SPIN_YIELD_PARK);
+
+        final ScheduledFuture<?> scheduledFuture = (recording instanceof Runnable)
+                ? executor.schedule((Runnable) recording, 100, TimeUnit.MICROSECONDS)
+                : executor.schedule((Callable<?>) recording, 100, TimeUnit.MICROSECONDS);
+        if (useTimeoutOfGetMethod) {
+            scheduledFuture.get(2, SECONDS);
+        } else {
+            scheduledFuture.get();
+        }
+
+        assertEquals(0, recording.getCountDownLatch().getCount(), "Runnable/Callable has not been executed.");
+        assertTrue(scheduledFuture.isDone(),
+                "Runnable/Callable must be 'done' after it has been executed.");
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenSpinYieldParkWaitStrategy_whenDelayIsShort_thenGetSpinsAndYieldsBeforeParking()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+        executor.setWaitStrategy(WaitStrategy.SPIN_YIELD_PARK);
+
+        final ScheduledFuture<Boolean> scheduledFuture = executor.schedule(() -> {
+            Thread.sleep(5);
+            return true;
+        }, 100, TimeUnit.MICROSECONDS);
+        assertTrue(scheduledFuture.get(2, SECONDS));
+
+        final Dispatcher dispatcher = ((AbstractDynamicFuture<?>) scheduledFuture).dispatcher;
+        if (AbstractDynamicFuture.MULTIPROCESSOR) {
+            assertTrue(0 < dispatcher.getSpinCount(), "get() must spin before the delay is over.");
+        } else {
+            assertEquals(0, dispatcher.getSpinCount(), "get() must not spin on a single processor.");
+        }
+        assertTrue(0 < dispatcher.getYieldCount(), "get() must yield after spinning.");
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenSpinYieldParkWaitStrategy_whenDelayIsLong_thenGetParksImmediately()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+        executor.setWaitStrategy(WaitStrategy.SPIN_YIELD_PARK);
+
+        final ScheduledFuture<Boolean> scheduledFuture = executor.schedule(() -> true, 50, TimeUnit.MILLISECONDS);
+        assertTrue(scheduledFuture.get(2, SECONDS));
+
+        final Dispatcher dispatcher = ((AbstractDynamicFuture<?>) scheduledFuture).dispatcher;
+        assertEquals(0, dispatcher.getSpinCount(), "get() must not spin for a delay of more than 1 ms.");
+        assertEquals(0, dispatcher.getYieldCount(), "get() must not yield for a delay of more than 1 ms.");
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenDispatchLagSlo_whenSchedulerThreadIsBlocked_thenSchedulerThreadAddedAndTimerFiredInTime()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(1);
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                scheduledThreadPoolExecutor, Executors.newSingleThreadExecutor());
+        executor.setDispatchLagSlo(50, TimeUnit.MILLISECONDS, 2);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        scheduledThreadPoolExecutor.execute(() -> awaitUninterruptedly(releaseLatch));
+        executor.schedule(new RecordingRunnable(1), 10, TimeUnit.MILLISECONDS).get(1, SECONDS);
+
+        final DispatchLagStatistics dispatchLagStatistics = executor.getDispatchLagStatistics();
+        assertTrue(0 < dispatchLagStatistics.getScaleUps(), "No scheduler thread has been added.");
+        assertEquals(2, dispatchLagStatistics.getSchedulerThreads());
+
+        releaseLatch.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void givenSchedulerWithTwoCoreThreads_whenSetDispatchLagSloBelowCoreSize_thenIllegalArgumentExceptionThrown() {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                new ScheduledThreadPoolExecutor(2), Executors.newSingleThreadExecutor());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> executor.setDispatchLagSlo(50, TimeUnit.MILLISECONDS, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> executor.setDispatchLagSlo(50, TimeUnit.MILLISECONDS, 1));
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenDispatchLagSloWithoutTimers_whenProbed_thenNoSampleRecorded() {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+        executor.setDispatchLagSlo(10, TimeUnit.MILLISECONDS, 1);
+
+        // long enough for several probes
+        sleepUninterruptedly(100);
+
+        final DispatchLagStatistics dispatchLagStatistics = executor.getDispatchLagStatistics();
+        assertEquals(0, dispatchLagStatistics.getSamples(), "Probes must not be recorded as samples.");
+        assertEquals(0, dispatchLagStatistics.getMaxLag(TimeUnit.NANOSECONDS), "Probes must not be recorded as samples.");
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenScaledUpScheduler_whenDispatchLagSloReplaced_thenOriginalCorePoolSizeKept()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(1);
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                scheduledThreadPoolExecutor, Executors.newSingleThreadExecutor());
+        executor.setDispatchLagSlo(50, TimeUnit.MILLISECONDS, 2);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        scheduledThreadPoolExecutor.execute(() -> awaitUninterruptedly(releaseLatch));
+        final ScheduledFuture<?> scheduledFuture = executor.schedule(new RecordingRunnable(1), 10, TimeUnit.MILLISECONDS);
+        scheduledFuture.get(1, SECONDS);
+        assertEquals(2, scheduledThreadPoolExecutor.getCorePoolSize(), "No scheduler thread has been added.");
+        releaseLatch.countDown();
+
+        executor.setDispatchLagSlo(50, TimeUnit.MILLISECONDS, 1);
+
+        final Dispatcher dispatcher = ((AbstractDynamicFuture<?>) scheduledFuture).dispatcher;
+        assertEquals(1, dispatcher.getDispatchLagMonitor().getInitialSchedulerThreads(),
+                "Replacing monitor must keep the original core pool size.");
+        while (scheduledThreadPoolExecutor.getCorePoolSize() != 1) {
+            sleepUninterruptedly(1);
+        }
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenProbeDroppedByShutdownOfScheduler_whenMonitored_thenMonitorStops() {
+        final ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(1);
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                scheduledThreadPoolExecutor, Executors.newSingleThreadExecutor());
+        final Dispatcher dispatcher = ((AbstractDynamicFuture<?>) executor.schedule(
+                new RecordingRunnable(1), 0, TimeUnit.MILLISECONDS)).dispatcher;
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        scheduledThreadPoolExecutor.execute(() -> awaitUninterruptedly(releaseLatch));
+        executor.setDispatchLagSlo(10, TimeUnit.MILLISECONDS, 1);
+        // the probe is queued behind the blocked scheduler thread and dropped by the shutdown
+        sleepUninterruptedly(50);
+        scheduledThreadPoolExecutor.shutdownNow();
+        releaseLatch.countDown();
+
+        final DispatchLagMonitor dispatchLagMonitor = dispatcher.getDispatchLagMonitor();
+        for (int i = 0; i < 1000 && dispatchLagMonitor.isRunning(); i++) {
+            sleepUninterruptedly(1);
+        }
+        assertFalse(dispatchLagMonitor.isRunning(), "Monitor must stop when the scheduler has dropped its probe.");
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenRateLimit_whenTasksScheduledAtOnce_thenTasksOverLimitDispatchedLaterWithoutWorker()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final ThreadPoolExecutor threadPoolExecutor =
+                new ThreadPoolExecutor(0, 4, 1, SECONDS, new SynchronousQueue<>());
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                Executors.newSingleThreadScheduledExecutor(), threadPoolExecutor);
+        executor.setRateLimit("limited", 5, 1);
+        final RecordingRunnable recordingRunnable = new RecordingRunnable(3);
+
+        final long scheduleTimeInMillis = System.currentTimeMillis();
+        final List<ScheduledFuture<?>> scheduledFutures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            scheduledFutures.add(executor.schedule("limited", recordingRunnable, 0, TimeUnit.MILLISECONDS));
+        }
+        scheduledFutures.get(0).get(1, SECONDS);
+        sleepUninterruptedly(50);
+
+        final ScheduledFuture<?> throttledFuture = scheduledFutures.get(2);
+        assertFalse(throttledFuture.isDone(), "Throttled task cannot be 'done' before it has been executed.");
+        assertTrue(0 < throttledFuture.getDelay(TimeUnit.MILLISECONDS), "Throttled task must have been re-timed.");
+        assertTrue(threadPoolExecutor.getPoolSize() <= 1, "Throttled tasks must not occupy a worker.");
+
+        for (ScheduledFuture<?> scheduledFuture : scheduledFutures) {
+            scheduledFuture.get(2, SECONDS);
+        }
+        final long lastStartTimeInMillis = recordingRunnable.getScheduleTimesInMillisReference().get(2);
+        assertTrue(400 - TOLERANCE_FOR_WAIT_TIME_IN_MILLIS <= lastStartTimeInMillis - scheduleTimeInMillis,
+                "Third task must wait for two permits of a rate limit of 5 per second.");
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenRateLimit_whenThrottledTaskCancelled_thenItsPermitIsReturned()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                Executors.newSingleThreadScheduledExecutor(), Executors.newFixedThreadPool(2));
+        executor.setRateLimit("limited", 1, 1);
+
+        executor.schedule("limited", new RecordingRunnable(1), 0, TimeUnit.MILLISECONDS).get(1, SECONDS);
+        final ScheduledFuture<?> throttledFuture =
+                executor.schedule("limited", new RecordingRunnable(1), 0, TimeUnit.MILLISECONDS);
+        while (throttledFuture.getDelay(TimeUnit.MILLISECONDS) <= 0) {
+            sleepUninterruptedly(1);
+        }
+        assertTrue(throttledFuture.cancel(false), "Throttled task must be cancellable.");
+
+        final ScheduledFuture<?> nextFuture =
+                executor.schedule("limited", new RecordingRunnable(1), 0, TimeUnit.MILLISECONDS);
+        nextFuture.get(1500, TimeUnit.MILLISECONDS);
+        assertTrue(throttledFuture.isCancelled(), "Throttled task must be 'cancelled'.");
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenThrottledTask_whenShutdownGracefullyAndRunRemaining_thenThrottledTaskRunImmediately()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                Executors.newSingleThreadScheduledExecutor(), Executors.newFixedThreadPool(2));
+        executor.setRateLimit("limited", 0.1, 1);
+
+        executor.schedule("limited", new RecordingRunnable(1), 0, TimeUnit.MILLISECONDS).get(1, SECONDS);
+        final ScheduledFuture<?> throttledFuture =
+                executor.schedule("limited", new RecordingRunnable(1), 0, TimeUnit.MILLISECONDS);
+        while (throttledFuture.getDelay(TimeUnit.MILLISECONDS) <= 0) {
+            sleepUninterruptedly(1);
+        }
+
+        final List<Runnable> notExecutedTasks =
+                executor.shutdownGracefully(100, 3000, TimeUnit.MILLISECONDS, true);
+
+        assertTrue(notExecutedTasks.isEmpty(), "No task is expected to be returned.");
+        throttledFuture.get(1, SECONDS);
+        assertFalse(throttledFuture.isCancelled(), "Throttled task must have been executed.");
+        assertTrue(executor.isTerminated(), "Executor has not been terminated.");
+    }
+
+    @Timeout(5)
+    @ParameterizedTest
+    @MethodSource("argumentsForFixedRate")
+    void givenPeriodicTask_whenExecutionThrowsException_thenNoFurtherExecutionAndExceptionReported(boolean fixedRate)
+            throws InterruptedException {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+        final IllegalStateException exception = new IllegalStateException("failed");
+        final AtomicInteger executions = new AtomicInteger();
+        final Runnable failingRunnable = () -> {
+            executions.incrementAndGet();
+            throw exception;
+        };
+
+        final ScheduledFuture<?> scheduledFuture = fixedRate
+                ? executor.scheduleAtFixedRate(failingRunnable, 10, 10, TimeUnit.MILLISECONDS)
+                : executor.scheduleWithFixedDelay(failingRunnable, 10, 10, TimeUnit.MILLISECONDS);
+
+        final ExecutionException executionException =
+                assertThrows(ExecutionException.class, () -> scheduledFuture.get(1, SECONDS));
+        assertEquals(exception, executionException.getCause());
+        assertTrue(scheduledFuture.isDone(), "Periodic task must be 'done' after an execution has failed.");
+        assertFalse(scheduledFuture.isCancelled(), "Periodic task cannot be 'cancelled' if it has failed.");
+        sleepUninterruptedly(100);
+        assertEquals(1, executions.get(), "Periodic task must not be executed again after it has failed.");
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, SECONDS), "Executor has not been terminated.");
+    }
+
+    private static Stream<Arguments> argumentsForFixedRate() {
+        return Stream.of(Arguments.of(true), Arguments.of(false));
+    }
+
+    @Timeout(5)
+    @Test
+    void givenFixedDelayTaskLongerThanDelay_whenExecuted_thenNextExecutionStartsDelayAfterCompletion()
+            throws InterruptedException {
+        final DynamicPoolSizeScheduledExecutor executor = createSingleThreadedDynamicPoolSizeScheduledExecutor();
+        final RecordingRunnable recordingRunnable = new RecordingRunnable(3, () -> sleepUninterruptedly(100));
+
+        final ScheduledFuture<?> scheduledFuture =
+                executor.scheduleWithFixedDelay(recordingRunnable, 0, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(recordingRunnable.getCountDownLatch().await(2, SECONDS), "Task has not been executed three times.");
+        scheduledFuture.cancel(false);
+        final AtomicLongArray startTimesInMillis = recordingRunnable.getScheduleTimesInMillisReference();
+        for (int i = 1; i < 3; i++) {
+            final long gapInMillis = startTimesInMillis.get(i) - startTimesInMillis.get(i - 1);
+            assertTrue(150 <= gapInMillis,
+                    "Execution " + i + " started only " + gapInMillis + "ms after the previous one.");
+        }
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenFixedRateTaskLongerThanPeriod_whenExecuted_thenNextExecutionStartsLateInsteadOfBeingSkipped()
+            throws InterruptedException {
+        final DynamicPoolSizeScheduledExecutor executor = new DynamicPoolSizeScheduledExecutor(
+                Executors.newSingleThreadScheduledExecutor(), Executors.newFixedThreadPool(2));
+        final RecordingRunnable recordingRunnable = new RecordingRunnable(3, () -> sleepUninterruptedly(100));
+
+        final ScheduledFuture<?> scheduledFuture =
+                executor.scheduleAtFixedRate(recordingRunnable, 0, 70, TimeUnit.MILLISECONDS);
+
+        assertTrue(recordingRunnable.getCountDownLatch().await(2, SECONDS), "Task has not been executed three times.");
+        scheduledFuture.cancel(false);
+        final AtomicLongArray startTimesInMillis = recordingRunnable.getScheduleTimesInMillisReference();
+        for (int i = 1; i < 3; i++) {
+            final long gapInMillis = startTimesInMillis.get(i) - startTimesInMillis.get(i - 1);
+            assertTrue(100 <= gapInMillis,
+                    "Execution " + i + " overlapped the previous one after " + gapInMillis + "ms.");
+            assertTrue(gapInMillis < 140,
+                    "Execution " + i + " was skipped to the next period after " + gapInMillis + "ms.");
+        }
+
+        executor.shutdown();
+    }
+
+    private void awaitUninterruptedly(CountDownLatch countDownLatch) {
+        try {
+            countDownLatch.await();
+        } catch (InterruptedException e) {
+            // We ignore it here
+        }
+    }
+
     public void sleepUninterruptedly(long millis) {
         try {
             Thread.sleep(millis);
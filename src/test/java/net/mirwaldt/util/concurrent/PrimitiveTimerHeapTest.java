@@ -0,0 +1,83 @@
+package net.mirwaldt.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrimitiveTimerHeapTest {
+    @Test
+    void givenEmptyHeap_whenPeekAndPoll_thenExpectNoSlot() {
+        final PrimitiveTimerHeap heap = new PrimitiveTimerHeap(4);
+        assertEquals(-1, heap.peek());
+        assertEquals(-1, heap.poll());
+        assertEquals(0, heap.size());
+    }
+
+    @Test
+    void givenRandomDeadlinesBeyondInitialCapacity_whenPolled_thenExpectAscendingDeadlines() {
+        final PrimitiveTimerHeap heap = new PrimitiveTimerHeap(4);
+        final Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            heap.add(random.nextInt(10_000), i);
+        }
+
+        long previousDeadline = Long.MIN_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            final int slot = heap.poll();
+            final long deadline = heap.getDeadline(slot);
+            assertTrue(previousDeadline <= deadline, "Deadline " + deadline + " polled after " + previousDeadline);
+            previousDeadline = deadline;
+            heap.free(slot);
+        }
+        assertEquals(0, heap.size());
+    }
+
+    @Test
+    void givenRemovedSlots_whenPolled_thenExpectOnlyRemainingTasksInOrder() {
+        final PrimitiveTimerHeap heap = new PrimitiveTimerHeap(4);
+        final List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            slots.add(heap.add(100 - i, "task" + i));
+        }
+        for (int i = 0; i < 20; i += 2) {
+            assertTrue(heap.remove(slots.get(i)));
+            assertFalse(heap.isQueued(slots.get(i)));
+            heap.free(slots.get(i));
+        }
+
+        for (int i = 19; 0 <= i; i -= 2) {
+            assertEquals("task" + i, heap.getTask(heap.poll()));
+        }
+        assertEquals(-1, heap.poll());
+    }
+
+    @Test
+    void givenFreedSlot_whenAddedAgain_thenExpectSlotReused() {
+        final PrimitiveTimerHeap heap = new PrimitiveTimerHeap(4);
+        final int slot = heap.add(10, "first");
+        heap.free(slot);
+
+        assertEquals(slot, heap.add(20, "second"));
+        assertEquals("second", heap.getTask(slot));
+    }
+
+    @Test
+    void givenPolledSlot_whenRescheduled_thenExpectSlotQueuedWithNewDeadline() {
+        final PrimitiveTimerHeap heap = new PrimitiveTimerHeap(4);
+        final int periodicSlot = heap.add(10, "periodic");
+        final int otherSlot = heap.add(15, "other");
+
+        assertEquals(periodicSlot, heap.poll());
+        heap.reschedule(periodicSlot, 20);
+
+        assertEquals(otherSlot, heap.poll());
+        assertEquals(periodicSlot, heap.poll());
+        assertEquals(20, heap.getDeadline(periodicSlot));
+    }
+}
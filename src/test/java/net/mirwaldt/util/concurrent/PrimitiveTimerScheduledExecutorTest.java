@@ -0,0 +1,190 @@
+package net.mirwaldt.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrimitiveTimerScheduledExecutorTest {
+    @Timeout(5)
+    @Test
+    void givenFixedRateTask_whenScheduled_thenExecutedRepeatedlyUntilCancelled() throws InterruptedException {
+        final PrimitiveTimerScheduledExecutor executor = new PrimitiveTimerScheduledExecutor(4);
+        final CountDownLatch executionsLatch = new CountDownLatch(3);
+
+        final ScheduledFuture<?> future = executor.scheduleAtFixedRate(executionsLatch::countDown, 10, 10, MILLISECONDS);
+
+        assertTrue(executionsLatch.await(1, SECONDS), "Task has not been executed three times.");
+        assertFalse(future.isDone(), "Periodic task cannot be 'done' before it has been cancelled.");
+        assertTrue(future.cancel(false), "Periodic task must be cancellable.");
+        assertTrue(future.isCancelled(), "Periodic task must be 'cancelled'.");
+        assertThrows(CancellationException.class, future::get);
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenFixedDelayTask_whenExecuted_thenNextExecutionStartsDelayAfterCompletion() throws InterruptedException {
+        final PrimitiveTimerScheduledExecutor executor = new PrimitiveTimerScheduledExecutor(4);
+        final List<Long> startTimesInNanos = new ArrayList<>();
+        final CountDownLatch executionsLatch = new CountDownLatch(3);
+
+        final ScheduledFuture<?> future = executor.scheduleWithFixedDelay(() -> {
+            synchronized (startTimesInNanos) {
+                startTimesInNanos.add(System.nanoTime());
+            }
+            sleepUninterruptedly(50);
+            executionsLatch.countDown();
+        }, 0, 50, MILLISECONDS);
+
+        assertTrue(executionsLatch.await(2, SECONDS), "Task has not been executed three times.");
+        future.cancel(false);
+        synchronized (startTimesInNanos) {
+            for (int i = 1; i < 3; i++) {
+                final long gapInNanos = startTimesInNanos.get(i) - startTimesInNanos.get(i - 1);
+                assertTrue(MILLISECONDS.toNanos(100) <= gapInNanos,
+                        "Execution " + i + " started only " + gapInNanos + " ns after the previous one.");
+            }
+        }
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenQueuedTask_whenCancelled_thenSlotReleasedAndReused() {
+        final PrimitiveTimerScheduledExecutor executor = new PrimitiveTimerScheduledExecutor(4);
+        final RecordingRunnable cancelledRunnable = new RecordingRunnable(1);
+
+        final PrimitiveTimerFuture<?> cancelledFuture =
+                (PrimitiveTimerFuture<?>) executor.schedule(cancelledRunnable, 60, SECONDS);
+        final int slot = cancelledFuture.getSlot();
+
+        assertTrue(cancelledFuture.cancel(false), "Queued task must be cancellable.");
+        assertFalse(cancelledFuture.cancel(false), "Task cannot be cancelled twice.");
+        assertTrue(cancelledFuture.isCancelled(), "Task must be 'cancelled'.");
+        assertTrue(cancelledFuture.isDone(), "Cancelled task must be 'done'.");
+        assertThrows(CancellationException.class, cancelledFuture::get);
+        assertEquals(-1, cancelledFuture.getSlot(), "Slot of cancelled task has not been released.");
+
+        final PrimitiveTimerFuture<?> nextFuture =
+                (PrimitiveTimerFuture<?>) executor.schedule(new RecordingRunnable(1), 60, SECONDS);
+        assertEquals(slot, nextFuture.getSlot(), "Slot of cancelled task has not been reused.");
+        assertEquals(1, cancelledRunnable.getCountDownLatch().getCount(), "Cancelled task must not be executed.");
+
+        executor.shutdownNow();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenRunningTask_whenCancelled_thenSlotReleasedAfterItHasRun()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final PrimitiveTimerScheduledExecutor executor = new PrimitiveTimerScheduledExecutor(4);
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        final PrimitiveTimerFuture<?> runningFuture = (PrimitiveTimerFuture<?>) executor.schedule(() -> {
+            startedLatch.countDown();
+            awaitUninterruptedly(releaseLatch);
+        }, 0, MILLISECONDS);
+        awaitUninterruptedly(startedLatch);
+
+        assertTrue(runningFuture.cancel(true), "Running task must be cancellable.");
+        assertTrue(runningFuture.isCancelled(), "Running task must be 'cancelled'.");
+        assertThrows(CancellationException.class, () -> runningFuture.get(1, SECONDS));
+
+        releaseLatch.countDown();
+        // the timer thread runs one task after the other
+        executor.schedule(() -> true, 0, MILLISECONDS).get(1, SECONDS);
+        assertEquals(-1, runningFuture.getSlot(), "Slot of cancelled task has not been released after it has run.");
+        assertTrue(runningFuture.isCancelled(), "Cancelled task must stay 'cancelled' after it has run.");
+
+        executor.shutdown();
+    }
+
+    @Timeout(5)
+    @Test
+    void givenDelayedAndPeriodicTasks_whenShutdown_thenDelayedTaskRunAndPeriodicTaskCancelled()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final PrimitiveTimerScheduledExecutor executor = new PrimitiveTimerScheduledExecutor(4);
+
+        final ScheduledFuture<Boolean> delayedFuture = executor.schedule(() -> true, 50, MILLISECONDS);
+        final ScheduledFuture<?> periodicFuture = executor.scheduleAtFixedRate(() -> { }, 10, 10, MILLISECONDS);
+        executor.shutdown();
+
+        assertTrue(executor.isShutdown(), "Executor has not been shut down.");
+        assertThrows(RejectedExecutionException.class, () -> executor.schedule(() -> true, 0, MILLISECONDS));
+        assertTrue(delayedFuture.get(1, SECONDS), "Delayed task must be executed after shutdown.");
+        assertTrue(periodicFuture.isCancelled(), "Periodic task must be 'cancelled' by shutdown.");
+        assertTrue(executor.awaitTermination(1, SECONDS), "Executor has not been terminated.");
+        assertTrue(executor.isTerminated(), "Executor has not been terminated.");
+    }
+
+    @Timeout(5)
+    @Test
+    void givenQueuedTasks_whenShutdownNow_thenQueuedTasksReturnedAndNotExecuted() throws InterruptedException {
+        final PrimitiveTimerScheduledExecutor executor = new PrimitiveTimerScheduledExecutor(4);
+        final RecordingRunnable delayedRunnable = new RecordingRunnable(1);
+
+        final ScheduledFuture<?> delayedFuture = executor.schedule(delayedRunnable, 60, SECONDS);
+        final ScheduledFuture<?> periodicFuture = executor.scheduleWithFixedDelay(() -> { }, 60, 60, SECONDS);
+        final List<Runnable> notExecutedTasks = executor.shutdownNow();
+
+        assertEquals(2, notExecutedTasks.size());
+        assertTrue(notExecutedTasks.contains(delayedFuture), "Delayed task has not been returned.");
+        assertTrue(notExecutedTasks.contains(periodicFuture), "Periodic task has not been returned.");
+        assertTrue(executor.awaitTermination(1, SECONDS), "Executor has not been terminated.");
+        assertEquals(1, delayedRunnable.getCountDownLatch().getCount(), "Delayed task must not be executed.");
+    }
+
+    @Timeout(5)
+    @Test
+    void givenRunningTask_whenAwaitTermination_thenTerminatedOnlyAfterTaskHasRun() throws InterruptedException {
+        final PrimitiveTimerScheduledExecutor executor = new PrimitiveTimerScheduledExecutor(4);
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        executor.schedule(() -> {
+            startedLatch.countDown();
+            awaitUninterruptedly(releaseLatch);
+        }, 0, MILLISECONDS);
+        awaitUninterruptedly(startedLatch);
+        executor.shutdown();
+
+        assertFalse(executor.awaitTermination(50, MILLISECONDS), "Executor cannot terminate while a task runs.");
+        assertFalse(executor.isTerminated(), "Executor cannot terminate while a task runs.");
+        releaseLatch.countDown();
+        assertTrue(executor.awaitTermination(1, SECONDS), "Executor has not been terminated.");
+    }
+
+    private void sleepUninterruptedly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // We ignore it here
+        }
+    }
+
+    private void awaitUninterruptedly(CountDownLatch countDownLatch) {
+        try {
+            countDownLatch.await();
+        } catch (InterruptedException e) {
+            // We ignore it here
+        }
+    }
+}